@@ -0,0 +1,56 @@
+package com.security.gateway.loadbalancer;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class InstanceStatsLifecycle implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    private final InstanceStatsRegistry statsRegistry;
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return RequestDataContext.class.isAssignableFrom(requestContextClass)
+                && ResponseData.class.isAssignableFrom(responseClass)
+                && ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+        if (request.getContext() != null) {
+            request.getContext().setRequestStartTime(System.nanoTime());
+        }
+        statsRegistry.onStart(lbResponse.getServer());
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (completionContext.status() == CompletionContext.Status.DISCARD || lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        RequestDataContext context = completionContext.getLoadBalancerRequest() == null
+                ? null : completionContext.getLoadBalancerRequest().getContext();
+        long started = context == null ? 0 : context.getRequestStartTime();
+        long latency = started == 0 ? 0 : System.nanoTime() - started;
+        ResponseData clientResponse = completionContext.getClientResponse();
+        boolean failed = completionContext.status() == CompletionContext.Status.FAILED
+                || (clientResponse != null && clientResponse.getHttpStatus() != null && clientResponse.getHttpStatus().is5xxServerError());
+        statsRegistry.onComplete(lbResponse.getServer(), latency, failed);
+    }
+}
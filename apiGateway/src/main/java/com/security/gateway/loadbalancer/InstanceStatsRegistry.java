@@ -0,0 +1,137 @@
+package com.security.gateway.loadbalancer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Component
+public class InstanceStatsRegistry {
+
+    private final Cache<String, InstanceStats> stats;
+    private final double decayNanos;
+    private final double errorThreshold;
+    private final int minimumRequests;
+    private final long ejectionNanos;
+    private final double initialLatencyNanos;
+    private final long failurePenaltyNanos;
+    private final Counter ejections;
+
+    public InstanceStatsRegistry(
+            MeterRegistry meterRegistry,
+            @Value("${application.load-balancer.decay:PT10S}") Duration decay,
+            @Value("${application.load-balancer.error-threshold:0.5}") double errorThreshold,
+            @Value("${application.load-balancer.minimum-requests:20}") int minimumRequests,
+            @Value("${application.load-balancer.ejection-duration:PT30S}") Duration ejectionDuration,
+            @Value("${application.load-balancer.initial-latency:PT0.1S}") Duration initialLatency,
+            @Value("${application.load-balancer.failure-penalty:PT1S}") Duration failurePenalty
+    ) {
+        this.stats = Caffeine.newBuilder()
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build();
+        this.decayNanos = decay.toNanos();
+        this.errorThreshold = errorThreshold;
+        this.minimumRequests = minimumRequests;
+        this.ejectionNanos = ejectionDuration.toNanos();
+        this.initialLatencyNanos = initialLatency.toNanos();
+        this.failurePenaltyNanos = failurePenalty.toNanos();
+        this.ejections = meterRegistry.counter("gateway.loadbalancer.ejections");
+    }
+
+    public InstanceStats get(ServiceInstance instance) {
+        String key = keyOf(instance);
+        InstanceStats existing = stats.getIfPresent(key);
+        if (existing != null) {
+            return existing;
+        }
+        double seed = seedLatency();
+        return stats.get(key, ignored -> new InstanceStats(seed));
+    }
+
+    private double seedLatency() {
+        double total = 0;
+        int known = 0;
+        for (InstanceStats instanceStats : stats.asMap().values()) {
+            double latency = instanceStats.observedLatency();
+            if (latency > 0) {
+                total += latency;
+                known++;
+            }
+        }
+        return known == 0 ? initialLatencyNanos : total / known;
+    }
+
+    public void onStart(ServiceInstance instance) {
+        get(instance).outstanding.incrementAndGet();
+    }
+
+    public void onComplete(ServiceInstance instance, long latencyNanos, boolean failed) {
+        InstanceStats instanceStats = get(instance);
+        instanceStats.outstanding.updateAndGet(current -> Math.max(0, current - 1));
+        if (instanceStats.record(latencyNanos, failed)) {
+            ejections.increment();
+            log.warn("Ejecting {}:{} for {} ms after elevated error rate", instance.getHost(), instance.getPort(),
+                    TimeUnit.NANOSECONDS.toMillis(ejectionNanos));
+        }
+    }
+
+    private static String keyOf(ServiceInstance instance) {
+        return instance.getInstanceId() != null ? instance.getInstanceId() : instance.getHost() + ":" + instance.getPort();
+    }
+
+    public final class InstanceStats {
+
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private double latencyEwma;
+        private boolean observed;
+        private double errorEwma;
+        private long samples;
+        private long lastUpdate = System.nanoTime();
+        private volatile long ejectedUntil;
+
+        private InstanceStats(double seedLatencyNanos) {
+            this.latencyEwma = seedLatencyNanos;
+        }
+
+        public boolean isEjected() {
+            return ejectedUntil - System.nanoTime() > 0;
+        }
+
+        public synchronized double cost() {
+            return latencyEwma * (outstanding.get() + 1);
+        }
+
+        private synchronized double observedLatency() {
+            return observed ? latencyEwma : 0;
+        }
+
+        private synchronized boolean record(long latencyNanos, boolean failed) {
+            long now = System.nanoTime();
+            double weight = Math.exp(-Math.max(0, now - lastUpdate) / decayNanos);
+            lastUpdate = now;
+            long effectiveLatency = failed ? Math.max(latencyNanos, failurePenaltyNanos) : latencyNanos;
+            if (effectiveLatency > 0) {
+                latencyEwma = observed ? latencyEwma * weight + effectiveLatency * (1 - weight) : effectiveLatency;
+                observed = true;
+            }
+            errorEwma = errorEwma * weight + (failed ? 1 - weight : 0);
+            samples++;
+            if (samples >= minimumRequests && errorEwma >= errorThreshold && !isEjected()) {
+                ejectedUntil = now + ejectionNanos;
+                errorEwma = 0;
+                samples = 0;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.security.gateway.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final InstanceStatsRegistry statsRegistry;
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider, InstanceStatsRegistry statsRegistry) {
+        this.supplierProvider = supplierProvider;
+        this.statsRegistry = statsRegistry;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::choose);
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        List<ServiceInstance> healthy = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            if (!statsRegistry.get(instance).isEjected()) {
+                healthy.add(instance);
+            }
+        }
+        List<ServiceInstance> candidates = healthy.isEmpty() ? instances : healthy;
+        if (candidates.size() == 1) {
+            return new DefaultResponse(candidates.get(0));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = candidates.get(first);
+        ServiceInstance b = candidates.get(second);
+        return new DefaultResponse(statsRegistry.get(a).cost() <= statsRegistry.get(b).cost() ? a : b);
+    }
+}
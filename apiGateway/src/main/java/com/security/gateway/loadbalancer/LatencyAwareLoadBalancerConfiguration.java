@@ -0,0 +1,23 @@
+package com.security.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+public class LatencyAwareLoadBalancerConfiguration {
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> latencyAwareLoadBalancer(
+            Environment environment,
+            LoadBalancerClientFactory loadBalancerClientFactory,
+            InstanceStatsRegistry instanceStatsRegistry
+    ) {
+        String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new LatencyAwareLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class),
+                instanceStatsRegistry);
+    }
+}
@@ -0,0 +1,9 @@
+package com.security.gateway.loadbalancer;
+
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@LoadBalancerClient(name = "GAS-PLANT-SERVICE", configuration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
@@ -1,8 +1,8 @@
 package com.security.gateway.security;
 
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
-import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
@@ -12,6 +12,13 @@ import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
 import reactor.core.publisher.Mono;
 
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
 @Configuration
 @RequiredArgsConstructor
 @EnableWebFluxSecurity
@@ -20,6 +27,7 @@ public class ApiGatewaySecurityConfiguration {
     private final GatewayJwtValidationFilter gatewayJwtValidationFilter;
     private final RequestValidationFilter requestValidationFilter;
     private final SecurityCheckFilter securityCheckFilter;
+    private final EdgeAuthorizationFilter edgeAuthorizationFilter;
 
     @Bean
     public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
@@ -33,24 +41,39 @@ public class ApiGatewaySecurityConfiguration {
                 .and()
                 .addFilterAt(requestValidationFilter, SecurityWebFiltersOrder.FIRST)
                 .addFilterAt(securityCheckFilter, SecurityWebFiltersOrder.AUTHENTICATION)
-                .addFilterAt(gatewayJwtValidationFilter, SecurityWebFiltersOrder.FIRST);
+                .addFilterAt(gatewayJwtValidationFilter, SecurityWebFiltersOrder.FIRST)
+                .addFilterAt(edgeAuthorizationFilter, SecurityWebFiltersOrder.AUTHORIZATION);
         return http.build();
     }
 
     @Bean
     public KeyResolver userKeyResolver() {
         return exchange -> {
-            String authHeader = exchange.getRequest().getHeaders().getFirst("Authorization");
-            if (authHeader != null && !authHeader.isEmpty()) {
-                return Mono.just(authHeader);
-            } else {
-                return Mono.just(exchange.getRequest().getRemoteAddress().toString());
+            Claims claims = exchange.getAttribute(GatewayJwtValidationFilter.CLAIMS_ATTRIBUTE);
+            if (claims != null && claims.getSubject() != null) {
+                return Mono.just("s:" + compactDigest(claims.getSubject()));
             }
+            InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+            String clientAddress = remoteAddress == null ? "unknown" : remoteAddress.getAddress().getHostAddress();
+            return Mono.just("a:" + compactDigest(clientAddress));
         };
     }
 
+    private static String compactDigest(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 12));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
     @Bean
-    public CustomRequestRateLimiterGatewayFilterFactory customRequestRateLimiterGatewayFilterFactory(RedisRateLimiter redisRateLimiter, KeyResolver defaultKeyResolver) {
-        return new CustomRequestRateLimiterGatewayFilterFactory(redisRateLimiter, defaultKeyResolver);
+    public CustomRequestRateLimiterGatewayFilterFactory customRequestRateLimiterGatewayFilterFactory(
+            HybridRateLimiter hybridRateLimiter,
+            RateLimitPolicyEngine rateLimitPolicyEngine,
+            KeyResolver defaultKeyResolver
+    ) {
+        return new CustomRequestRateLimiterGatewayFilterFactory(hybridRateLimiter, rateLimitPolicyEngine, defaultKeyResolver);
     }
 }
\ No newline at end of file
@@ -1,45 +1,65 @@
 package com.security.gateway.security;
 
+import com.security.gateway.security.cache.ResponseCacheGatewayFilterFactory;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
-import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
 import org.springframework.cloud.gateway.route.Route;
 import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-@RequiredArgsConstructor
 public class CustomRequestRateLimiterGatewayFilterFactory
         extends AbstractGatewayFilterFactory<CustomRequestRateLimiterGatewayFilterFactory.Config> {
 
-    private final RedisRateLimiter redisRateLimiter;
+    private final HybridRateLimiter rateLimiter;
+    private final RateLimitPolicyEngine policyEngine;
     private final KeyResolver defaultKeyResolver;
 
+    public CustomRequestRateLimiterGatewayFilterFactory(
+            HybridRateLimiter rateLimiter,
+            RateLimitPolicyEngine policyEngine,
+            KeyResolver defaultKeyResolver
+    ) {
+        super(Config.class);
+        this.rateLimiter = rateLimiter;
+        this.policyEngine = policyEngine;
+        this.defaultKeyResolver = defaultKeyResolver;
+    }
+
     @Override
     public GatewayFilter apply(Config config) {
-        return (exchange, chain) -> defaultKeyResolver.resolve(exchange).flatMap(key -> {
+        HybridRateLimiter.Limit routeDefault = new HybridRateLimiter.Limit(
+                Long.parseLong(config.getReplenishRate()),
+                Long.parseLong(config.getBurstCapacity()),
+                1);
+        return new OrderedGatewayFilter((exchange, chain) -> defaultKeyResolver.resolve(exchange).flatMap(key -> {
             Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
             if (route == null) {
                 return chain.filter(exchange);
             }
-            return redisRateLimiter.isAllowed(route.getId(), key).flatMap(response -> {
-                if (response.isAllowed()) {
+            RateLimitPolicyEngine.Policy policy = policyEngine.resolve(exchange, routeDefault);
+            return rateLimiter.consume(route.getId() + ":" + policy.bucket() + ":" + key, policy.limit()).flatMap(decision -> {
+                exchange.getResponse().getHeaders().set("X-RateLimit-Remaining", Long.toString(decision.remaining()));
+                if (decision.allowed()) {
                     return chain.filter(exchange);
                 } else {
-                    return handleRateLimitExceeded(exchange);
+                    return handleRateLimitExceeded(exchange, decision);
                 }
             });
-        });
+        }), ResponseCacheGatewayFilterFactory.ORDER - 1);
     }
 
-    private Mono<Void> handleRateLimitExceeded(ServerWebExchange exchange) {
+    private Mono<Void> handleRateLimitExceeded(ServerWebExchange exchange, HybridRateLimiter.Decision decision) {
         exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
         exchange.getResponse().getHeaders().add("Content-Type", "application/json");
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                Long.toString(Math.max(1, (decision.retryAfterMillis() + 999) / 1000)));
         String responseBody = "{\"message\":\"Too many requests. Please try again later.\"}";
         return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(responseBody.getBytes())));
     }
@@ -47,8 +67,8 @@ public class CustomRequestRateLimiterGatewayFilterFactory
     @Getter
     @Setter
     public static class Config {
-        private String replenishRate;
-        private String burstCapacity;
+        private String replenishRate = "1";
+        private String burstCapacity = "20";
 
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,101 @@
+package com.security.gateway.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class EdgeAuthorizationFilter implements WebFilter {
+
+    private final EdgeAuthorizationProperties properties;
+    private final EdgePermissionCatalog permissionCatalog;
+    private final MeterRegistry meterRegistry;
+
+    private volatile CompiledRules compiled = new CompiledRules(null, List.of());
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        Claims claims = exchange.getAttribute(GatewayJwtValidationFilter.CLAIMS_ATTRIBUTE);
+        if (!properties.isEnabled() || claims == null) {
+            return chain.filter(exchange);
+        }
+        String permission = requiredPermission(exchange);
+        if (permission == null) {
+            return chain.filter(exchange);
+        }
+        List<?> roles = claims.get("roles", List.class);
+        if (roles != null && roles.contains(properties.getSuperAdminRole())) {
+            return chain.filter(exchange);
+        }
+        if (isGranted(claims, permission) == Boolean.FALSE) {
+            meterRegistry.counter("gateway.authorization.denied", "permission", permission).increment();
+            exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
+            return Mono.empty();
+        }
+        return chain.filter(exchange);
+    }
+
+    private Boolean isGranted(Claims claims, String permission) {
+        List<?> permissions = claims.get("permissions", List.class);
+        if (permissions != null) {
+            return permissions.contains(permission);
+        }
+        String permissionBits = claims.get("pbits", String.class);
+        if (permissionBits == null) {
+            return Boolean.FALSE;
+        }
+        Integer id = permissionCatalog.idOf(permission);
+        if (id == null) {
+            return null;
+        }
+        return BitSet.valueOf(Base64.getUrlDecoder().decode(permissionBits)).get(id);
+    }
+
+    private String requiredPermission(ServerWebExchange exchange) {
+        String method = exchange.getRequest().getMethod().name();
+        PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+        for (CompiledRule rule : rules()) {
+            if (rule.matches(method, path)) {
+                return rule.definition().getPermission();
+            }
+        }
+        return null;
+    }
+
+    private List<CompiledRule> rules() {
+        List<EdgeAuthorizationProperties.Rule> definitions = properties.getRules();
+        CompiledRules current = compiled;
+        if (current.source() != definitions) {
+            current = new CompiledRules(definitions, definitions.stream()
+                    .map(definition -> new CompiledRule(definition, PathPatternParser.defaultInstance.parse(definition.getPath())))
+                    .toList());
+            compiled = current;
+        }
+        return current.rules();
+    }
+
+    private record CompiledRules(List<EdgeAuthorizationProperties.Rule> source, List<CompiledRule> rules) {
+    }
+
+    private record CompiledRule(EdgeAuthorizationProperties.Rule definition, PathPattern pattern) {
+
+        boolean matches(String method, PathContainer path) {
+            List<String> methods = definition.getMethods();
+            return (methods.isEmpty() || methods.contains(method)) && pattern.matches(path);
+        }
+    }
+}
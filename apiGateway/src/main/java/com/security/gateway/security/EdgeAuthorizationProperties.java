@@ -0,0 +1,28 @@
+package com.security.gateway.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "application.security.edge-authorization")
+public class EdgeAuthorizationProperties {
+
+    private boolean enabled = true;
+    private String superAdminRole = "ROLE_SUPER-ADMIN";
+    private List<Rule> rules = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Rule {
+        private String path;
+        private List<String> methods = new ArrayList<>();
+        private String permission;
+    }
+}
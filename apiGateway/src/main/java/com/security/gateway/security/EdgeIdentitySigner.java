@@ -0,0 +1,76 @@
+package com.security.gateway.security;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+@Component
+public class EdgeIdentitySigner {
+
+    public static final String HEADER = "X-Edge-Identity";
+    private static final String VERSION = "v2";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final EdgeIdentityMac mac;
+
+    public EdgeIdentitySigner(
+            @Value("${application.security.edge-identity.enabled:false}") boolean enabled,
+            @Value("${application.security.edge-identity.secret:}") String secret
+    ) {
+        this.mac = EdgeIdentityMac.forSecret(enabled, secret);
+    }
+
+    public ServerWebExchange stripUntrusted(ServerWebExchange exchange) {
+        if (!exchange.getRequest().getHeaders().containsKey(HEADER)) {
+            return exchange;
+        }
+        return exchange.mutate()
+                .request(request -> request.headers(headers -> headers.remove(HEADER)))
+                .build();
+    }
+
+    public ServerWebExchange attach(ServerWebExchange exchange, Claims claims, String tokenDigest) {
+        if (mac == null) {
+            return exchange;
+        }
+        String value = sign(claims, tokenDigest);
+        return exchange.mutate()
+                .request(request -> request.headers(headers -> headers.set(HEADER, value)))
+                .build();
+    }
+
+    private String sign(Claims claims, String tokenDigest) {
+        String payload = String.join("\n",
+                claims.getSubject(),
+                Long.toString(claims.getExpiration().getTime() / 1000),
+                join(claims.get("roles", List.class)),
+                join(claims.get("permissions", List.class)),
+                Objects.toString(claims.get("pbits", String.class), ""),
+                tokenDigest);
+        String encodedPayload = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        String signingInput = VERSION + "." + encodedPayload;
+        byte[] signature = mac.sign(signingInput);
+        return signingInput + "." + ENCODER.encodeToString(signature);
+    }
+
+    private static String join(Collection<?> values) {
+        if (values == null || values.isEmpty()) {
+            return "";
+        }
+        StringBuilder joined = new StringBuilder();
+        for (Object value : values) {
+            if (!joined.isEmpty()) {
+                joined.append(',');
+            }
+            joined.append(value);
+        }
+        return joined.toString();
+    }
+}
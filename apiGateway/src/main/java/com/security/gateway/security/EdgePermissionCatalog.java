@@ -0,0 +1,65 @@
+package com.security.gateway.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Map;
+
+@Slf4j
+@Component
+public class EdgePermissionCatalog {
+
+    private static final String CATALOG_KEY = "permissions::catalog";
+    private static final String PERMISSIONS_CHANGED_CHANNEL = "permissions-changed";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+    private volatile Map<String, Integer> idByName = Map.of();
+    private Disposable changeSubscription;
+
+    public EdgePermissionCatalog(ReactiveStringRedisTemplate redisTemplate, ReactiveRedisMessageListenerContainer listenerContainer) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        refresh();
+        changeSubscription = listenerContainer.receive(ChannelTopic.of(PERMISSIONS_CHANGED_CHANNEL))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe(message -> refresh(), ex -> log.warn("Permission catalog subscription ended: {}", ex.toString()));
+    }
+
+    @PreDestroy
+    void close() {
+        if (changeSubscription != null) {
+            changeSubscription.dispose();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.security.edge-authorization.catalog-refresh-interval:60000}")
+    public void refresh() {
+        redisTemplate.<String, String>opsForHash().entries(CATALOG_KEY)
+                .collectMap(Map.Entry::getValue, entry -> Integer.parseInt(entry.getKey()))
+                .subscribe(
+                        catalog -> {
+                            if (!catalog.isEmpty()) {
+                                idByName = Map.copyOf(catalog);
+                            }
+                        },
+                        ex -> log.warn("Failed to load permission catalog: {}", ex.toString()));
+    }
+
+    public Integer idOf(String permission) {
+        return idByName.get(permission);
+    }
+}
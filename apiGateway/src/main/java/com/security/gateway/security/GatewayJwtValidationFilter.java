@@ -1,6 +1,9 @@
 package com.security.gateway.security;
 
 import com.security.gateway.service.JwtService;
+import com.security.gateway.service.ReactiveJwtVerifier;
+import com.security.gateway.service.TokenDigest;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
@@ -13,21 +16,36 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 
 import java.util.ArrayList;
+import java.util.concurrent.RejectedExecutionException;
 
 @Component
 public class GatewayJwtValidationFilter implements WebFilter {
 
+    public static final String CLAIMS_ATTRIBUTE = GatewayJwtValidationFilter.class.getName() + ".claims";
+    public static final String REVOCATION_CHECKED_ATTRIBUTE = GatewayJwtValidationFilter.class.getName() + ".revocationChecked";
+
     private final JwtService jwtService;
+    private final ReactiveJwtVerifier jwtVerifier;
+    private final RevokedTokenIndex revokedTokenIndex;
+    private final EdgeIdentitySigner edgeIdentitySigner;
 
     @Autowired
-    public GatewayJwtValidationFilter(JwtService jwtService) {
+    public GatewayJwtValidationFilter(
+            JwtService jwtService,
+            ReactiveJwtVerifier jwtVerifier,
+            RevokedTokenIndex revokedTokenIndex,
+            EdgeIdentitySigner edgeIdentitySigner
+    ) {
         this.jwtService = jwtService;
+        this.jwtVerifier = jwtVerifier;
+        this.revokedTokenIndex = revokedTokenIndex;
+        this.edgeIdentitySigner = edgeIdentitySigner;
     }
 
     @Override
-    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    public Mono<Void> filter(ServerWebExchange incoming, WebFilterChain chain) {
+        ServerWebExchange exchange = edgeIdentitySigner.stripUntrusted(incoming);
         String path = exchange.getRequest().getURI().getPath();
-        System.out.println("Request path: " + path);
 
         if ("/GAS-PLANT/api/v1/auth/login".equals(path) | "/GAS-PLANT/api/v1/auth/register".equals(path) | "/GAS-PLANT/api/v1/auth/initialization/launch".equals(path)) {
             return chain.filter(exchange);
@@ -35,19 +53,45 @@ public class GatewayJwtValidationFilter implements WebFilter {
 
         String authHeader = exchange.getRequest().getHeaders().getFirst("Authorization");
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            System.out.println("No valid Authorization header found");
-            exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
-            return Mono.empty();
+            return reject(exchange, HttpStatus.UNAUTHORIZED);
         }
         String jwt = authHeader.substring(7);
-        if (jwtService.isTokenStructureValid(jwt)) {
-            String username = jwtService.getUsernameFromToken(jwt);
-            Authentication auth = new UsernamePasswordAuthenticationToken(username, null, new ArrayList<>());
-            return chain.filter(exchange).contextWrite(ReactiveSecurityContextHolder.withAuthentication(auth));
-        } else {
-            System.out.println("JWT token structure is invalid");
-            exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
-            return Mono.empty();
+        if (!jwtService.isTokenStructureValid(jwt)) {
+            return reject(exchange, HttpStatus.UNAUTHORIZED);
+        }
+        String digest = TokenDigest.of(jwt);
+        return jwtVerifier.verify(jwt, digest)
+                .onErrorMap(RejectedExecutionException.class, ex -> new VerificationOverloadedException())
+                .flatMap(verification -> {
+                    if (!verification.valid()) {
+                        return reject(exchange, HttpStatus.UNAUTHORIZED);
+                    }
+                    return revokedTokenIndex.check(digest).flatMap(status -> {
+                        if (status == RevokedTokenIndex.Status.REVOKED) {
+                            return reject(exchange, HttpStatus.UNAUTHORIZED);
+                        }
+                        exchange.getAttributes().put(REVOCATION_CHECKED_ATTRIBUTE, status == RevokedTokenIndex.Status.NOT_REVOKED);
+                        return authenticated(exchange, chain, verification.claims(), digest);
+                    });
+                })
+                .onErrorResume(VerificationOverloadedException.class, ex -> reject(exchange, HttpStatus.SERVICE_UNAVAILABLE));
+    }
+
+    private Mono<Void> authenticated(ServerWebExchange exchange, WebFilterChain chain, Claims claims, String tokenDigest) {
+        exchange.getAttributes().put(CLAIMS_ATTRIBUTE, claims);
+        Authentication auth = new UsernamePasswordAuthenticationToken(claims.getSubject(), null, new ArrayList<>());
+        return chain.filter(edgeIdentitySigner.attach(exchange, claims, tokenDigest)).contextWrite(ReactiveSecurityContextHolder.withAuthentication(auth));
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, HttpStatus status) {
+        exchange.getResponse().setStatusCode(status);
+        return Mono.empty();
+    }
+
+    private static final class VerificationOverloadedException extends RuntimeException {
+
+        VerificationOverloadedException() {
+            super("JWT verification queue is full", null, false, false);
         }
     }
 }
@@ -0,0 +1,205 @@
+package com.security.gateway.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+public class HybridRateLimiter {
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> GLOBAL_BUCKET_SCRIPT = new DefaultRedisScript<>("""
+            local rate = tonumber(ARGV[1])
+            local capacity = tonumber(ARGV[2])
+            local requested = tonumber(ARGV[3])
+            local force = ARGV[4] == '1'
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local state = redis.call('HMGET', KEYS[1], 't', 'ts')
+            local tokens = tonumber(state[1]) or capacity
+            local ts = tonumber(state[2]) or now
+            tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate / 1000)
+            local allowed = 0
+            if tokens >= requested then
+                tokens = tokens - requested
+                allowed = 1
+            elseif force then
+                tokens = 0
+            end
+            redis.call('HSET', KEYS[1], 't', tokens, 'ts', now)
+            redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate * 1000) + 1000)
+            return {allowed, math.floor(tokens)}
+            """, List.class);
+
+    public enum Mode {
+        LOCAL,
+        HYBRID,
+        STRICT
+    }
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final Mode mode;
+    private final Duration redisTimeout;
+    private final Cache<String, LocalBucket> buckets;
+    private final Counter allowed;
+    private final Counter rejected;
+    private final Counter fallbacks;
+
+    public HybridRateLimiter(
+            ReactiveStringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${application.security.rate-limit.mode:HYBRID}") Mode mode,
+            @Value("${application.security.rate-limit.redis-timeout:50}") long redisTimeoutMillis,
+            @Value("${application.security.rate-limit.maximum-keys:100000}") long maximumKeys
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.mode = mode;
+        this.redisTimeout = Duration.ofMillis(redisTimeoutMillis);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build();
+        this.allowed = meterRegistry.counter("gateway.ratelimit.requests", "outcome", "allowed");
+        this.rejected = meterRegistry.counter("gateway.ratelimit.requests", "outcome", "rejected");
+        this.fallbacks = meterRegistry.counter("gateway.ratelimit.redis.fallback");
+        meterRegistry.gauge("gateway.ratelimit.buckets", buckets, cache -> cache.estimatedSize());
+    }
+
+    public Mono<Decision> consume(String key, Limit limit) {
+        LocalBucket bucket = buckets.get(key + "|" + limit.signature(), ignored -> new LocalBucket(key, limit));
+        if (mode != Mode.STRICT) {
+            return Mono.just(record(bucket.consume(limit.cost())));
+        }
+        return globalConsume(key, limit, limit.cost(), false)
+                .map(result -> {
+                    bucket.alignTo(result.get(1));
+                    return new Decision(result.get(0) == 1, result.get(1), result.get(0) == 1 ? 0 : limit.retryAfterMillis());
+                })
+                .timeout(redisTimeout)
+                .onErrorResume(ex -> {
+                    fallbacks.increment();
+                    log.warn("Rate limiter falling back to local bucket for {}: {}", key, ex.toString());
+                    return Mono.just(bucket.consume(limit.cost()));
+                })
+                .map(this::record);
+    }
+
+    @Scheduled(fixedDelayString = "${application.security.rate-limit.sync-interval:250}")
+    public void reconcile() {
+        if (mode != Mode.HYBRID) {
+            return;
+        }
+        buckets.asMap().values().forEach(bucket -> {
+            long consumed = bucket.drainUnsynced();
+            if (consumed == 0) {
+                return;
+            }
+            globalConsume(bucket.key(), bucket.limit(), consumed, true)
+                    .timeout(redisTimeout)
+                    .subscribe(
+                            result -> bucket.alignTo(result.get(1)),
+                            ex -> {
+                                bucket.restoreUnsynced(consumed);
+                                fallbacks.increment();
+                                log.debug("Rate limiter reconcile failed for {}: {}", bucket.key(), ex.toString());
+                            });
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<List<Long>> globalConsume(String key, Limit limit, long tokens, boolean force) {
+        return redisTemplate.execute(GLOBAL_BUCKET_SCRIPT, List.of("rl:" + key + "|" + limit.signature()),
+                        List.of(Long.toString(limit.replenishRate()), Long.toString(limit.burstCapacity()),
+                                Long.toString(tokens), force ? "1" : "0"))
+                .next()
+                .map(result -> (List<Long>) result);
+    }
+
+    private Decision record(Decision decision) {
+        (decision.allowed() ? allowed : rejected).increment();
+        return decision;
+    }
+
+    public record Limit(long replenishRate, long burstCapacity, long cost) {
+
+        String signature() {
+            return replenishRate + "/" + burstCapacity;
+        }
+
+        long retryAfterMillis() {
+            return Math.max(1, cost * 1000 / Math.max(1, replenishRate));
+        }
+    }
+
+    public record Decision(boolean allowed, long remaining, long retryAfterMillis) {
+    }
+
+    private static final class LocalBucket {
+
+        private final String key;
+        private final Limit limit;
+        private final Bucket bucket;
+        private final AtomicLong unsynced = new AtomicLong();
+
+        LocalBucket(String key, Limit limit) {
+            this.key = key;
+            this.limit = limit;
+            this.bucket = Bucket.builder()
+                    .addLimit(Bandwidth.classic(limit.burstCapacity(),
+                            Refill.greedy(limit.replenishRate(), Duration.ofSeconds(1))))
+                    .build();
+        }
+
+        String key() {
+            return key;
+        }
+
+        Limit limit() {
+            return limit;
+        }
+
+        Decision consume(long tokens) {
+            ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(tokens);
+            if (probe.isConsumed()) {
+                unsynced.addAndGet(tokens);
+                return new Decision(true, probe.getRemainingTokens(), 0);
+            }
+            return new Decision(false, probe.getRemainingTokens(),
+                    TimeUnit.NANOSECONDS.toMillis(probe.getNanosToWaitForRefill()));
+        }
+
+        long drainUnsynced() {
+            return unsynced.getAndSet(0);
+        }
+
+        void restoreUnsynced(long tokens) {
+            unsynced.addAndGet(tokens);
+        }
+
+        void alignTo(long globalRemaining) {
+            long surplus = bucket.getAvailableTokens() - globalRemaining;
+            if (surplus > 0) {
+                bucket.tryConsumeAsMuchAsPossible(surplus);
+            }
+        }
+    }
+}
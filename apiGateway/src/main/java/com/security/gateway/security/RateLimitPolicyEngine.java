@@ -0,0 +1,93 @@
+package com.security.gateway.security;
+
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.List;
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+public class RateLimitPolicyEngine {
+
+    private static final String DEFAULT_BUCKET = "d";
+
+    private final RateLimitPolicyProperties properties;
+
+    private volatile CompiledRules compiled = new CompiledRules(null, List.of());
+
+    public Policy resolve(ServerWebExchange exchange, HybridRateLimiter.Limit routeDefault) {
+        Claims claims = exchange.getAttribute(GatewayJwtValidationFilter.CLAIMS_ATTRIBUTE);
+        String method = exchange.getRequest().getMethod().name();
+        PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+        for (CompiledRule rule : rules()) {
+            if (!rule.matches(method, path)) {
+                continue;
+            }
+            RateLimitPolicyProperties.RouteRule definition = rule.definition();
+            if (definition.getReplenishRate() != null && definition.getBurstCapacity() != null) {
+                return new Policy(rule.bucket(), new HybridRateLimiter.Limit(
+                        definition.getReplenishRate(), definition.getBurstCapacity(), definition.getCost()));
+            }
+            return new Policy(DEFAULT_BUCKET, principalLimit(claims, routeDefault, definition.getCost()));
+        }
+        return new Policy(DEFAULT_BUCKET, principalLimit(claims, routeDefault, 1));
+    }
+
+    private HybridRateLimiter.Limit principalLimit(Claims claims, HybridRateLimiter.Limit routeDefault, long cost) {
+        RateLimitPolicyProperties.Limit selected = null;
+        if (claims == null) {
+            selected = properties.getAnonymous();
+        } else {
+            List<?> roles = claims.get("roles", List.class);
+            Map<String, RateLimitPolicyProperties.Limit> roleLimits = properties.getRoles();
+            if (roles != null && !roleLimits.isEmpty()) {
+                for (Object role : roles) {
+                    RateLimitPolicyProperties.Limit candidate = roleLimits.get(role.toString());
+                    if (candidate != null && (selected == null || candidate.getReplenishRate() > selected.getReplenishRate())) {
+                        selected = candidate;
+                    }
+                }
+            }
+        }
+        if (selected == null) {
+            return new HybridRateLimiter.Limit(routeDefault.replenishRate(), routeDefault.burstCapacity(), cost);
+        }
+        return new HybridRateLimiter.Limit(selected.getReplenishRate(), selected.getBurstCapacity(), cost);
+    }
+
+    private List<CompiledRule> rules() {
+        List<RateLimitPolicyProperties.RouteRule> definitions = properties.getRoutes();
+        CompiledRules current = compiled;
+        if (current.source() != definitions) {
+            List<CompiledRule> rules = definitions.stream()
+                    .map(definition -> new CompiledRule(
+                            definition,
+                            PathPatternParser.defaultInstance.parse(definition.getPath()),
+                            "r" + (definition.getId() != null ? definition.getId() : Integer.toString(definitions.indexOf(definition)))))
+                    .toList();
+            current = new CompiledRules(definitions, rules);
+            compiled = current;
+        }
+        return current.rules();
+    }
+
+    public record Policy(String bucket, HybridRateLimiter.Limit limit) {
+    }
+
+    private record CompiledRules(List<RateLimitPolicyProperties.RouteRule> source, List<CompiledRule> rules) {
+    }
+
+    private record CompiledRule(RateLimitPolicyProperties.RouteRule definition, PathPattern pattern, String bucket) {
+
+        boolean matches(String method, PathContainer path) {
+            List<String> methods = definition.getMethods();
+            return (methods.isEmpty() || methods.contains(method)) && pattern.matches(path);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.security.gateway.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "application.security.rate-limit.policies")
+public class RateLimitPolicyProperties {
+
+    private Limit anonymous;
+    private Map<String, Limit> roles = new LinkedHashMap<>();
+    private List<RouteRule> routes = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Limit {
+        private long replenishRate;
+        private long burstCapacity;
+    }
+
+    @Getter
+    @Setter
+    public static class RouteRule {
+        private String id;
+        private String path;
+        private List<String> methods = new ArrayList<>();
+        private Long replenishRate;
+        private Long burstCapacity;
+        private long cost = 1;
+    }
+}
@@ -0,0 +1,266 @@
+package com.security.gateway.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Slf4j
+@Component
+public class RevokedTokenIndex {
+
+    private static final String REVOCATION_STREAM_KEY = "rv2:stream";
+    private static final String REVOKED_TOKENS_KEY = "rv2:set";
+    private static final String INITIAL_STREAM_ID = "0-0";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveProbability;
+    private final int batchSize;
+    private final Duration redisTimeout;
+    private final Counter negatives;
+    private final Counter falsePositives;
+    private final Counter revoked;
+    private final Counter unknown;
+    private final Counter gaps;
+    private final long maxStalenessMillis;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile BloomFilter filter;
+    private volatile String lastStreamId = INITIAL_STREAM_ID;
+    private volatile long lastSyncedAt;
+
+    public RevokedTokenIndex(
+            ReactiveStringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${application.security.revocation.enabled:true}") boolean enabled,
+            @Value("${application.security.revocation.expected-insertions:100000}") long expectedInsertions,
+            @Value("${application.security.revocation.false-positive-probability:0.001}") double falsePositiveProbability,
+            @Value("${application.security.revocation.batch-size:500}") int batchSize,
+            @Value("${application.security.revocation.redis-timeout:1000}") long redisTimeoutMillis,
+            @Value("${application.security.revocation.max-staleness:2000}") long maxStalenessMillis
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.batchSize = batchSize;
+        this.redisTimeout = Duration.ofMillis(redisTimeoutMillis);
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.negatives = meterRegistry.counter("gateway.revocation.checks", "result", "negative");
+        this.falsePositives = meterRegistry.counter("gateway.revocation.checks", "result", "false_positive");
+        this.revoked = meterRegistry.counter("gateway.revocation.checks", "result", "revoked");
+        this.unknown = meterRegistry.counter("gateway.revocation.checks", "result", "unknown");
+        this.gaps = meterRegistry.counter("gateway.revocation.stream.gaps");
+        meterRegistry.gauge("gateway.revocation.filter.insertions", this, index -> {
+            BloomFilter current = index.filter;
+            return current == null ? 0 : current.insertions();
+        });
+    }
+
+    public Mono<Status> check(String digest) {
+        BloomFilter current = filter;
+        byte[] raw = decode(digest);
+        if (!enabled || current == null || raw == null
+                || System.currentTimeMillis() - lastSyncedAt > maxStalenessMillis) {
+            unknown.increment();
+            return Mono.just(Status.UNKNOWN);
+        }
+        if (!current.mightContain(raw)) {
+            negatives.increment();
+            return Mono.just(Status.NOT_REVOKED);
+        }
+        return redisTemplate.opsForZSet().score(REVOKED_TOKENS_KEY, digest)
+                .map(expiresAt -> expiresAt > System.currentTimeMillis())
+                .defaultIfEmpty(false)
+                .timeout(redisTimeout)
+                .doOnNext(result -> (result ? revoked : falsePositives).increment())
+                .map(result -> result ? Status.REVOKED : Status.NOT_REVOKED)
+                .onErrorResume(ex -> {
+                    log.warn("Revocation lookup failed, deferring to the service: {}", ex.toString());
+                    unknown.increment();
+                    return Mono.just(Status.UNKNOWN);
+                });
+    }
+
+    @Scheduled(fixedDelayString = "${application.security.revocation.poll-interval:500}")
+    public void poll() {
+        if (!enabled || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        BloomFilter current = filter;
+        Mono<Void> work = current == null
+                ? rebuildFilter()
+                : firstStreamId().flatMap(first -> {
+                    if (isTrimmedPast(first)) {
+                        gaps.increment();
+                        log.warn("Revocation stream was trimmed past {}, rebuilding the filter", lastStreamId);
+                        return rebuildFilter();
+                    }
+                    return readStream(current);
+                });
+        run(work, "Failed to read revocation stream: {}");
+    }
+
+    @Scheduled(fixedDelayString = "${application.security.revocation.rebuild-interval:600000}")
+    public void rebuild() {
+        if (!enabled || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        run(rebuildFilter(), "Failed to rebuild revoked token filter: {}");
+    }
+
+    private void run(Mono<Void> work, String failureMessage) {
+        work.doOnSuccess(ignored -> lastSyncedAt = System.currentTimeMillis())
+                .doFinally(signal -> refreshing.set(false))
+                .subscribe(null, e -> log.warn(failureMessage, e.toString()));
+    }
+
+    private Mono<String> firstStreamId() {
+        return redisTemplate.opsForStream()
+                .range(REVOCATION_STREAM_KEY, Range.unbounded(), Limit.limit().count(1))
+                .next()
+                .map(record -> record.getId().getValue())
+                .defaultIfEmpty(INITIAL_STREAM_ID)
+                .timeout(redisTimeout);
+    }
+
+    private boolean isTrimmedPast(String firstStreamId) {
+        String last = lastStreamId;
+        return !INITIAL_STREAM_ID.equals(last) && !INITIAL_STREAM_ID.equals(firstStreamId)
+                && compareStreamIds(firstStreamId, last) > 0;
+    }
+
+    private Mono<Void> readStream(BloomFilter current) {
+        return redisTemplate.opsForStream()
+                .read(StreamReadOptions.empty().count(batchSize),
+                        StreamOffset.create(REVOCATION_STREAM_KEY, ReadOffset.from(lastStreamId)))
+                .collectList()
+                .timeout(redisTimeout)
+                .flatMap(records -> {
+                    for (MapRecord<String, Object, Object> record : records) {
+                        byte[] raw = decode(String.valueOf(record.getValue().get("d")));
+                        if (raw != null) {
+                            current.put(raw);
+                        }
+                        lastStreamId = record.getId().getValue();
+                    }
+                    return records.size() >= batchSize ? readStream(current) : Mono.empty();
+                });
+    }
+
+    private Mono<Void> rebuildFilter() {
+        return redisTemplate.opsForStream()
+                .reverseRange(REVOCATION_STREAM_KEY, Range.unbounded(), Limit.limit().count(1))
+                .next()
+                .map(record -> record.getId().getValue())
+                .defaultIfEmpty(INITIAL_STREAM_ID)
+                .timeout(redisTimeout)
+                .flatMap(tail -> redisTemplate.opsForZSet()
+                        .rangeByScore(REVOKED_TOKENS_KEY, Range.closed((double) System.currentTimeMillis(), Double.POSITIVE_INFINITY))
+                        .collectList()
+                        .timeout(redisTimeout)
+                        .doOnNext(digests -> {
+                            BloomFilter next = new BloomFilter(Math.max(expectedInsertions, digests.size() * 2L), falsePositiveProbability);
+                            for (String digest : digests) {
+                                byte[] raw = decode(digest);
+                                if (raw != null) {
+                                    next.put(raw);
+                                }
+                            }
+                            filter = next;
+                            lastStreamId = tail;
+                            log.info("Revoked token filter rebuilt with {} entries", digests.size());
+                        }))
+                .then();
+    }
+
+    static int compareStreamIds(String left, String right) {
+        int leftSeparator = left.indexOf('-');
+        int rightSeparator = right.indexOf('-');
+        int byTime = Long.compare(Long.parseLong(left.substring(0, leftSeparator)), Long.parseLong(right.substring(0, rightSeparator)));
+        return byTime != 0 ? byTime
+                : Long.compare(Long.parseLong(left.substring(leftSeparator + 1)), Long.parseLong(right.substring(rightSeparator + 1)));
+    }
+
+    private static byte[] decode(String digest) {
+        try {
+            byte[] raw = Base64.getUrlDecoder().decode(digest);
+            return raw.length >= 16 ? raw : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public enum Status {
+        NOT_REVOKED,
+        REVOKED,
+        UNKNOWN
+    }
+
+    static final class BloomFilter {
+
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+        private volatile long insertions;
+
+        BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+            long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.max(1, (optimalBits + 63) / 64);
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = words * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        }
+
+        void put(byte[] digest) {
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            long h1 = buffer.getLong();
+            long h2 = buffer.getLong();
+            for (int i = 0; i < hashCount; i++) {
+                long index = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long value;
+                do {
+                    value = bits.get(word);
+                } while ((value & mask) == 0 && !bits.compareAndSet(word, value, value | mask));
+            }
+            insertions++;
+        }
+
+        boolean mightContain(byte[] digest) {
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            long h1 = buffer.getLong();
+            long h2 = buffer.getLong();
+            for (int i = 0; i < hashCount; i++) {
+                long index = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long insertions() {
+            return insertions;
+        }
+    }
+}
@@ -1,27 +1,82 @@
 package com.security.gateway.security;
 
+import com.security.gateway.security.scan.JsonBodyScan;
+import com.security.gateway.security.scan.PercentDecodingScan;
+import com.security.gateway.security.scan.ThreatDetectedException;
+import com.security.gateway.security.scan.ThreatScanProperties;
+import com.security.gateway.security.scan.ThreatScanner;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.regex.Pattern;
-
+@Slf4j
 @Component
+@RequiredArgsConstructor
 public class SecurityCheckFilter implements WebFilter {
 
-    private static final Pattern SQL_INJECTION_PATTERN = Pattern.compile("([a-zA-Z0-9_\\-]+)([\\<\\>\\'\\\"\\=\\(\\)])+");
-    private static final Pattern XSS_PATTERN = Pattern.compile("<script>(.*?)</script>", Pattern.CASE_INSENSITIVE);
+    private final ThreatScanner scanner;
+    private final ThreatScanProperties properties;
+    private final MeterRegistry meterRegistry;
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
-        String queryString = exchange.getRequest().getURI().getQuery();
-        if (queryString != null && (SQL_INJECTION_PATTERN.matcher(queryString).find() || XSS_PATTERN.matcher(queryString).find())) {
-            exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
-            return Mono.empty();
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        String rule = PercentDecodingScan.scan(scanner, request.getURI().getRawPath(), false);
+        if (rule == null) {
+            rule = PercentDecodingScan.scan(scanner, request.getURI().getRawQuery(), true);
+        }
+        if (rule != null) {
+            return reject(exchange, rule, "uri");
+        }
+        if (!properties.isScanBody() || !isJson(request)) {
+            return chain.filter(exchange);
         }
-        return chain.filter(exchange);
+        JsonBodyScan bodyScan = new JsonBodyScan(scanner.newScan());
+        ServerHttpRequest scanned = new ServerHttpRequestDecorator(request) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return super.getBody().handle((buffer, sink) -> {
+                    if (bodyScan.accept(buffer)) {
+                        DataBufferUtils.release(buffer);
+                        sink.error(new ThreatDetectedException(bodyScan.matchedRule()));
+                    } else {
+                        sink.next(buffer);
+                    }
+                });
+            }
+        };
+        return chain.filter(exchange.mutate().request(scanned).build())
+                .onErrorResume(ThreatDetectedException.class, ex -> exchange.getResponse().isCommitted()
+                        ? Mono.error(ex)
+                        : reject(exchange, ex.getRule(), "body"));
+    }
+
+    private boolean isJson(ServerHttpRequest request) {
+        MediaType contentType = request.getHeaders().getContentType();
+        return contentType != null && (MediaType.APPLICATION_JSON.isCompatibleWith(contentType)
+                || contentType.getSubtype().endsWith("+json"));
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, String rule, String location) {
+        meterRegistry.counter("gateway.threatscan.blocked", "rule", rule, "location", location).increment();
+        log.warn("Blocked {} {} on threat rule {} in {}", exchange.getRequest().getMethod(),
+                exchange.getRequest().getPath(), rule, location);
+        exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
+        return Mono.empty();
     }
-}
\ No newline at end of file
+}
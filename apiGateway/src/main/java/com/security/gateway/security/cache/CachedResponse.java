@@ -0,0 +1,80 @@
+package com.security.gateway.security.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+
+public record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body, String etag) {
+
+    private static final List<String> UNCACHED_HEADERS = List.of(
+            HttpHeaders.CONTENT_LENGTH,
+            HttpHeaders.TRANSFER_ENCODING,
+            HttpHeaders.CONNECTION,
+            HttpHeaders.ETAG,
+            HttpHeaders.CACHE_CONTROL,
+            HttpHeaders.PRAGMA,
+            HttpHeaders.EXPIRES,
+            HttpHeaders.SET_COOKIE,
+            "X-RateLimit-Remaining");
+    private static final String REVALIDATE = "private, no-cache";
+
+    public static CachedResponse capture(HttpStatusCode status, HttpHeaders source, byte[] body) {
+        HttpHeaders headers = new HttpHeaders();
+        source.forEach((name, values) -> {
+            if (UNCACHED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                headers.put(name, List.copyOf(values));
+            }
+        });
+        return new CachedResponse(status, HttpHeaders.readOnlyHttpHeaders(headers), body, etag(body));
+    }
+
+    public boolean matches(HttpHeaders requestHeaders) {
+        List<String> candidates = requestHeaders.getIfNoneMatch();
+        for (String candidate : candidates) {
+            String opaque = candidate.startsWith("W/") ? candidate.substring(2) : candidate;
+            if ("*".equals(opaque) || etag.equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Mono<Void> writeTo(ServerHttpResponse response, HttpHeaders requestHeaders) {
+        HttpHeaders responseHeaders = response.getHeaders();
+        responseHeaders.remove(HttpHeaders.TRANSFER_ENCODING);
+        responseHeaders.remove(HttpHeaders.PRAGMA);
+        responseHeaders.remove(HttpHeaders.EXPIRES);
+        responseHeaders.putAll(headers);
+        responseHeaders.setETag(etag);
+        responseHeaders.setCacheControl(REVALIDATE);
+        if (matches(requestHeaders)) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            responseHeaders.remove(HttpHeaders.CONTENT_LENGTH);
+            responseHeaders.remove(HttpHeaders.CONTENT_TYPE);
+            return response.setComplete();
+        }
+        response.setStatusCode(status);
+        responseHeaders.setContentLength(body.length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(body)));
+    }
+
+    public int weight() {
+        return body.length + 256;
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
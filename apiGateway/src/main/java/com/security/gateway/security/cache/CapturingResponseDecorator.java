@@ -0,0 +1,76 @@
+package com.security.gateway.security.cache;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+public class CapturingResponseDecorator extends ServerHttpResponseDecorator {
+
+    private final HttpHeaders requestHeaders;
+    private final long limit;
+    private final Consumer<CachedResponse> onCapture;
+    private final Runnable onSkip;
+
+    public CapturingResponseDecorator(
+            ServerWebExchange exchange,
+            long limit,
+            Consumer<CachedResponse> onCapture,
+            Runnable onSkip
+    ) {
+        super(exchange.getResponse());
+        this.requestHeaders = exchange.getRequest().getHeaders();
+        this.limit = limit;
+        this.onCapture = onCapture;
+        this.onSkip = onSkip;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        if (getStatusCode() != HttpStatus.OK || getHeaders().containsKey(HttpHeaders.SET_COOKIE)) {
+            onSkip.run();
+            return super.writeWith(body);
+        }
+        AtomicLong size = new AtomicLong();
+        return Flux.<DataBuffer>from(body)
+                .bufferUntil(buffer -> size.addAndGet(buffer.readableByteCount()) > limit)
+                .switchOnFirst((signal, chunks) -> {
+                    if (size.get() > limit) {
+                        onSkip.run();
+                        return super.writeWith(chunks.concatMapIterable(list -> list));
+                    }
+                    List<DataBuffer> buffers = signal.hasValue() ? signal.get() : List.of();
+                    CachedResponse captured = CachedResponse.capture(getStatusCode(), getHeaders(), drain(buffers, (int) size.get()));
+                    onCapture.accept(captured);
+                    return captured.writeTo(getDelegate(), requestHeaders);
+                })
+                .then();
+    }
+
+    @Override
+    public Mono<Void> setComplete() {
+        onSkip.run();
+        return super.setComplete();
+    }
+
+    private static byte[] drain(List<DataBuffer> buffers, int size) {
+        byte[] bytes = new byte[size];
+        int offset = 0;
+        for (DataBuffer buffer : buffers) {
+            int length = buffer.readableByteCount();
+            buffer.read(bytes, offset, length);
+            offset += length;
+            DataBufferUtils.release(buffer);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,130 @@
+package com.security.gateway.security.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Component
+public class RequestCoalescingGatewayFilterFactory extends AbstractGatewayFilterFactory<RequestCoalescingGatewayFilterFactory.Config> {
+
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+
+    private final RequestCoalescingProperties properties;
+    private final ConcurrentMap<ResponseCacheKey, Sinks.One<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter coalesced;
+    private final Counter fallbacks;
+    private final Counter bypassed;
+    private volatile CompiledPaths compiled = new CompiledPaths(null, List.of());
+
+    public RequestCoalescingGatewayFilterFactory(RequestCoalescingProperties properties, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.properties = properties;
+        this.leaders = meterRegistry.counter("gateway.coalescing.requests", "role", "leader");
+        this.coalesced = meterRegistry.counter("gateway.coalescing.requests", "role", "follower");
+        this.fallbacks = meterRegistry.counter("gateway.coalescing.fallbacks");
+        this.bypassed = meterRegistry.counter("gateway.coalescing.bypassed");
+        meterRegistry.gaugeMapSize("gateway.coalescing.in_flight", List.of(), inFlight);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            if (!properties.isEnabled()
+                    || exchange.getRequest().getMethod() != HttpMethod.GET
+                    || !isCoalescable(exchange.getRequest().getPath().pathWithinApplication())) {
+                return chain.filter(exchange);
+            }
+            if (!ResponseCacheGatewayFilterFactory.isRevocationChecked(exchange)) {
+                bypassed.increment();
+                return chain.filter(exchange);
+            }
+            ResponseCacheKey key = ResponseCacheKey.of(exchange);
+            Sinks.One<CachedResponse> existing = inFlight.get(key);
+            if (existing == null) {
+                if (inFlight.size() >= properties.getMaximumInFlight()) {
+                    bypassed.increment();
+                    return chain.filter(exchange);
+                }
+                Sinks.One<CachedResponse> created = Sinks.one();
+                existing = inFlight.putIfAbsent(key, created);
+                if (existing == null) {
+                    return lead(exchange, chain, key, created);
+                }
+            }
+            return follow(exchange, chain, existing);
+        }, ORDER);
+    }
+
+    private Mono<Void> lead(ServerWebExchange exchange, GatewayFilterChain chain, ResponseCacheKey key, Sinks.One<CachedResponse> sink) {
+        leaders.increment();
+        Runnable release = () -> {
+            if (inFlight.remove(key, sink)) {
+                sink.tryEmitEmpty();
+            }
+        };
+        CapturingResponseDecorator capturing = new CapturingResponseDecorator(exchange, properties.getMaximumBodySize().toBytes(),
+                captured -> {
+                    if (inFlight.remove(key, sink)) {
+                        sink.tryEmitValue(captured);
+                    }
+                },
+                release);
+        return chain.filter(exchange.mutate().response(capturing).build())
+                .doFinally(signal -> release.run());
+    }
+
+    private Mono<Void> follow(ServerWebExchange exchange, GatewayFilterChain chain, Sinks.One<CachedResponse> sink) {
+        coalesced.increment();
+        HttpHeaders requestHeaders = exchange.getRequest().getHeaders();
+        return sink.asMono()
+                .timeout(properties.getTimeout())
+                .onErrorResume(ex -> Mono.empty())
+                .flatMap(response -> response.writeTo(exchange.getResponse(), requestHeaders).thenReturn(Boolean.TRUE))
+                .switchIfEmpty(Mono.defer(() -> {
+                    fallbacks.increment();
+                    return chain.filter(exchange).thenReturn(Boolean.TRUE);
+                }))
+                .then();
+    }
+
+    private boolean isCoalescable(PathContainer path) {
+        List<String> definitions = properties.getPaths();
+        CompiledPaths current = compiled;
+        if (current.source() != definitions) {
+            current = new CompiledPaths(definitions, definitions.stream()
+                    .map(PathPatternParser.defaultInstance::parse)
+                    .toList());
+            compiled = current;
+        }
+        for (PathPattern pattern : current.patterns()) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static class Config {
+    }
+
+    private record CompiledPaths(List<String> source, List<PathPattern> patterns) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.security.gateway.security.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "application.security.request-coalescing")
+public class RequestCoalescingProperties {
+
+    private boolean enabled = true;
+    private Duration timeout = Duration.ofSeconds(5);
+    private int maximumInFlight = 10000;
+    private DataSize maximumBodySize = DataSize.ofMegabytes(1);
+    private List<String> paths = new ArrayList<>();
+}
@@ -0,0 +1,126 @@
+package com.security.gateway.security.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.Disposable;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+public class ResponseCache {
+
+    private static final String PURGE_ALL = "*";
+
+    private final ResponseCacheProperties properties;
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+    private final Cache<ResponseCacheKey, CachedResponse> cache;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile CompiledPaths compiled = new CompiledPaths(null, List.of());
+    private Disposable purgeSubscription;
+
+    public ResponseCache(
+            ResponseCacheProperties properties,
+            ReactiveRedisMessageListenerContainer listenerContainer,
+            MeterRegistry meterRegistry
+    ) {
+        this.properties = properties;
+        this.listenerContainer = listenerContainer;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getTtl())
+                .maximumWeight(properties.getMaximumSize().toBytes())
+                .<ResponseCacheKey, CachedResponse>weigher((key, value) -> value.weight())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.response");
+    }
+
+    @PostConstruct
+    void subscribe() {
+        purgeSubscription = listenerContainer.receive(ChannelTopic.of(properties.getPurgeChannel()))
+                .map(ReactiveSubscription.Message::getMessage)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe(this::purge, ex -> log.warn("Response cache purge subscription ended: {}", ex.toString()));
+    }
+
+    @PreDestroy
+    void close() {
+        if (purgeSubscription != null) {
+            purgeSubscription.dispose();
+        }
+    }
+
+    public boolean isCacheable(PathContainer path) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        for (PathPattern pattern : paths()) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public CachedResponse get(ResponseCacheKey key) {
+        return cache.getIfPresent(key);
+    }
+
+    public long maximumBodySize() {
+        return properties.getMaximumBodySize().toBytes();
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public void put(ResponseCacheKey key, CachedResponse response, long startedAt) {
+        if (generation.get() != startedAt) {
+            return;
+        }
+        cache.put(key, response);
+        if (generation.get() != startedAt) {
+            cache.asMap().remove(key, response);
+        }
+    }
+
+    public void purge(String resource) {
+        generation.incrementAndGet();
+        if (resource == null || resource.isBlank() || PURGE_ALL.equals(resource)) {
+            cache.invalidateAll();
+            return;
+        }
+        cache.asMap().keySet().removeIf(key -> key.belongsTo(resource));
+        log.debug("Purged cached responses for {}", resource);
+    }
+
+    private List<PathPattern> paths() {
+        List<String> definitions = properties.getPaths();
+        CompiledPaths current = compiled;
+        if (current.source() != definitions) {
+            current = new CompiledPaths(definitions, definitions.stream()
+                    .map(PathPatternParser.defaultInstance::parse)
+                    .toList());
+            compiled = current;
+        }
+        return current.patterns();
+    }
+
+    private record CompiledPaths(List<String> source, List<PathPattern> patterns) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.security.gateway.security.cache;
+
+import com.security.gateway.security.GatewayJwtValidationFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2;
+
+    private final ResponseCache responseCache;
+    private final Counter notModified;
+    private final Counter unverified;
+
+    public ResponseCacheGatewayFilterFactory(ResponseCache responseCache, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.responseCache = responseCache;
+        this.notModified = meterRegistry.counter("gateway.response.cache.not_modified");
+        this.unverified = meterRegistry.counter("gateway.response.cache.bypassed", "reason", "revocation_unchecked");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            if (exchange.getRequest().getMethod() != HttpMethod.GET
+                    || !responseCache.isCacheable(exchange.getRequest().getPath().pathWithinApplication())) {
+                return chain.filter(exchange);
+            }
+            if (!isRevocationChecked(exchange)) {
+                unverified.increment();
+                return chain.filter(exchange);
+            }
+            long generation = responseCache.generation();
+            ResponseCacheKey key = ResponseCacheKey.of(exchange);
+            HttpHeaders requestHeaders = exchange.getRequest().getHeaders();
+            CachedResponse cached = responseCache.get(key);
+            if (cached != null) {
+                countNotModified(cached, requestHeaders);
+                return cached.writeTo(exchange.getResponse(), requestHeaders);
+            }
+            CapturingResponseDecorator capturing = new CapturingResponseDecorator(exchange, responseCache.maximumBodySize(),
+                    captured -> {
+                        responseCache.put(key, captured, generation);
+                        countNotModified(captured, requestHeaders);
+                    },
+                    () -> {
+                    });
+            return chain.filter(exchange.mutate().response(capturing).build());
+        }, ORDER);
+    }
+
+    static boolean isRevocationChecked(ServerWebExchange exchange) {
+        return Boolean.TRUE.equals(exchange.getAttribute(GatewayJwtValidationFilter.REVOCATION_CHECKED_ATTRIBUTE));
+    }
+
+    private void countNotModified(CachedResponse response, HttpHeaders requestHeaders) {
+        if (response.matches(requestHeaders)) {
+            notModified.increment();
+        }
+    }
+
+    public static class Config {
+    }
+}
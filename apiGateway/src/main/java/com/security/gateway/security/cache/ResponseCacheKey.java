@@ -0,0 +1,63 @@
+package com.security.gateway.security.cache;
+
+import com.security.gateway.security.GatewayJwtValidationFilter;
+import io.jsonwebtoken.Claims;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Objects;
+
+public record ResponseCacheKey(String routeId, String method, String path, String query, String scope) {
+
+    private static final String ANONYMOUS_SCOPE = "-";
+
+    public static ResponseCacheKey of(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        URI uri = exchange.getRequest().getURI();
+        return new ResponseCacheKey(
+                route == null ? "" : route.getId(),
+                exchange.getRequest().getMethod().name(),
+                uri.getRawPath(),
+                Objects.toString(uri.getRawQuery(), ""),
+                scope(exchange.getAttribute(GatewayJwtValidationFilter.CLAIMS_ATTRIBUTE)));
+    }
+
+    public boolean belongsTo(String resource) {
+        int index = path.indexOf(resource);
+        if (index < 0) {
+            return false;
+        }
+        int end = index + resource.length();
+        return end == path.length() || path.charAt(end) == '/';
+    }
+
+    private static String scope(Claims claims) {
+        if (claims == null) {
+            return ANONYMOUS_SCOPE;
+        }
+        String authorities = join(claims.get("roles", Collection.class))
+                + "\n" + join(claims.get("permissions", Collection.class))
+                + "\n" + Objects.toString(claims.get("pbits", String.class), "");
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(authorities.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 12));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String join(Collection<?> values) {
+        if (values == null || values.isEmpty()) {
+            return "";
+        }
+        return values.stream().map(String::valueOf).sorted().reduce((a, b) -> a + "," + b).orElse("");
+    }
+}
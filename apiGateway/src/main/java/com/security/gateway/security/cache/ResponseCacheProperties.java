@@ -0,0 +1,25 @@
+package com.security.gateway.security.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "application.security.response-cache")
+public class ResponseCacheProperties {
+
+    private boolean enabled = true;
+    private Duration ttl = Duration.ofSeconds(30);
+    private DataSize maximumSize = DataSize.ofMegabytes(64);
+    private DataSize maximumBodySize = DataSize.ofKilobytes(512);
+    private String purgeChannel = "gateway-cache-purge";
+    private List<String> paths = new ArrayList<>();
+}
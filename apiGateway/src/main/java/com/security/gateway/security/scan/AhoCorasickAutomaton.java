@@ -0,0 +1,98 @@
+package com.security.gateway.security.scan;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+public final class AhoCorasickAutomaton {
+
+    private static final int ALPHABET = 256;
+
+    private final int[] transitions;
+    private final int[] outputs;
+
+    private AhoCorasickAutomaton(int[] transitions, int[] outputs) {
+        this.transitions = transitions;
+        this.outputs = outputs;
+    }
+
+    public static AhoCorasickAutomaton compile(List<String> patterns, List<Integer> patternOutputs) {
+        List<int[]> trie = new ArrayList<>();
+        List<Integer> output = new ArrayList<>();
+        trie.add(newNode());
+        output.add(-1);
+        for (int p = 0; p < patterns.size(); p++) {
+            int state = 0;
+            for (byte raw : patterns.get(p).getBytes(StandardCharsets.UTF_8)) {
+                int symbol = fold(raw);
+                if (trie.get(state)[symbol] < 0) {
+                    trie.get(state)[symbol] = trie.size();
+                    trie.add(newNode());
+                    output.add(-1);
+                }
+                state = trie.get(state)[symbol];
+            }
+            if (output.get(state) < 0) {
+                output.set(state, patternOutputs.get(p));
+            }
+        }
+        int states = trie.size();
+        int[] transitions = new int[states * ALPHABET];
+        int[] outputs = new int[states];
+        int[] failure = new int[states];
+        for (int s = 0; s < states; s++) {
+            outputs[s] = output.get(s);
+        }
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < ALPHABET; symbol++) {
+            int child = trie.get(0)[symbol];
+            if (child < 0) {
+                transitions[symbol] = 0;
+            } else {
+                transitions[symbol] = child;
+                failure[child] = 0;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            if (outputs[state] < 0) {
+                outputs[state] = outputs[failure[state]];
+            }
+            for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                int child = trie.get(state)[symbol];
+                int fallback = transitions[failure[state] * ALPHABET + symbol];
+                if (child < 0) {
+                    transitions[state * ALPHABET + symbol] = fallback;
+                } else {
+                    transitions[state * ALPHABET + symbol] = child;
+                    failure[child] = fallback;
+                    queue.add(child);
+                }
+            }
+        }
+        return new AhoCorasickAutomaton(transitions, outputs);
+    }
+
+    public int next(int state, int value) {
+        return transitions[state * ALPHABET + fold(value)];
+    }
+
+    public int output(int state) {
+        return outputs[state];
+    }
+
+    private static int[] newNode() {
+        int[] node = new int[ALPHABET];
+        Arrays.fill(node, -1);
+        return node;
+    }
+
+    private static int fold(int value) {
+        int symbol = value & 0xFF;
+        return symbol >= 'A' && symbol <= 'Z' ? symbol + ('a' - 'A') : symbol;
+    }
+}
@@ -0,0 +1,81 @@
+package com.security.gateway.security.scan;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class AhoCorasickThreatScanner implements ThreatScanner {
+
+    private final ThreatScanProperties properties;
+
+    private volatile CompiledRules compiled = new CompiledRules(null, null, List.of());
+
+    @Override
+    public Scan newScan() {
+        return new AutomatonScan(rules());
+    }
+
+    private CompiledRules rules() {
+        List<ThreatScanProperties.Rule> definitions = properties.getRules();
+        CompiledRules current = compiled;
+        if (current.source() != definitions) {
+            List<String> patterns = new ArrayList<>();
+            List<Integer> outputs = new ArrayList<>();
+            List<String> ruleIds = new ArrayList<>();
+            for (ThreatScanProperties.Rule rule : definitions) {
+                ruleIds.add(rule.getId() != null ? rule.getId() : Integer.toString(ruleIds.size()));
+                for (String pattern : rule.getPatterns()) {
+                    if (pattern != null && !pattern.isEmpty()) {
+                        patterns.add(pattern);
+                        outputs.add(ruleIds.size() - 1);
+                    }
+                }
+            }
+            current = new CompiledRules(definitions, AhoCorasickAutomaton.compile(patterns, outputs), List.copyOf(ruleIds));
+            compiled = current;
+        }
+        return current;
+    }
+
+    private record CompiledRules(List<ThreatScanProperties.Rule> source, AhoCorasickAutomaton automaton, List<String> ruleIds) {
+    }
+
+    private static final class AutomatonScan implements Scan {
+
+        private final AhoCorasickAutomaton automaton;
+        private final List<String> ruleIds;
+        private int state;
+        private String matchedRule;
+
+        AutomatonScan(CompiledRules rules) {
+            this.automaton = rules.automaton();
+            this.ruleIds = rules.ruleIds();
+        }
+
+        @Override
+        public boolean accept(int value) {
+            if (matchedRule != null) {
+                return true;
+            }
+            if (automaton == null) {
+                return false;
+            }
+            state = automaton.next(state, value);
+            int output = automaton.output(state);
+            if (output >= 0) {
+                matchedRule = ruleIds.get(output);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public String matchedRule() {
+            return matchedRule;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.security.gateway.security.scan;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+public final class JsonBodyScan {
+
+    private static final int PLAIN = 0;
+    private static final int ESCAPE = 1;
+    private static final int UNICODE = 2;
+
+    private final ThreatScanner.Scan scan;
+    private int mode = PLAIN;
+    private int codePoint;
+    private int digits;
+
+    public JsonBodyScan(ThreatScanner.Scan scan) {
+        this.scan = scan;
+    }
+
+    public boolean accept(DataBuffer buffer) {
+        int end = buffer.writePosition();
+        for (int i = buffer.readPosition(); i < end; i++) {
+            if (accept(buffer.getByte(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean accept(byte value) {
+        int b = value & 0xFF;
+        switch (mode) {
+            case ESCAPE -> {
+                mode = PLAIN;
+                return switch (b) {
+                    case 'u' -> {
+                        mode = UNICODE;
+                        codePoint = 0;
+                        digits = 0;
+                        yield false;
+                    }
+                    case 'n' -> scan.accept('\n');
+                    case 'r' -> scan.accept('\r');
+                    case 't' -> scan.accept('\t');
+                    case 'b' -> scan.accept('\b');
+                    case 'f' -> scan.accept('\f');
+                    default -> scan.accept(b);
+                };
+            }
+            case UNICODE -> {
+                int hex = Character.digit(b, 16);
+                if (hex < 0) {
+                    mode = PLAIN;
+                    return scan.accept(b);
+                }
+                codePoint = (codePoint << 4) | hex;
+                if (++digits == 4) {
+                    mode = PLAIN;
+                    return scan.accept(codePoint > 0xFF ? 0xFF : codePoint);
+                }
+                return false;
+            }
+            default -> {
+                if (b == '\\') {
+                    mode = ESCAPE;
+                    return false;
+                }
+                return scan.accept(b);
+            }
+        }
+    }
+
+    public String matchedRule() {
+        return scan.matchedRule();
+    }
+}
@@ -0,0 +1,70 @@
+package com.security.gateway.security.scan;
+
+public final class PercentDecodingScan {
+
+    private final ThreatScanner.Scan scan;
+    private final boolean plusAsSpace;
+    private int pending = -1;
+    private int digits;
+
+    public PercentDecodingScan(ThreatScanner.Scan scan, boolean plusAsSpace) {
+        this.scan = scan;
+        this.plusAsSpace = plusAsSpace;
+    }
+
+    public static String scan(ThreatScanner scanner, CharSequence value, boolean plusAsSpace) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        ThreatScanner.Scan scan = scanner.newScan();
+        PercentDecodingScan decoder = new PercentDecodingScan(scan, plusAsSpace);
+        for (int i = 0; i < value.length(); i++) {
+            if (decoder.accept(value.charAt(i))) {
+                return scan.matchedRule();
+            }
+        }
+        return decoder.finish() ? scan.matchedRule() : null;
+    }
+
+    public boolean accept(char c) {
+        if (pending >= 0) {
+            int hex = Character.digit(c, 16);
+            if (hex < 0) {
+                return flushPending() || emit(c);
+            }
+            pending = (pending << 4) | hex;
+            if (++digits == 2) {
+                int decoded = pending;
+                pending = -1;
+                return scan.accept(decoded);
+            }
+            return false;
+        }
+        if (c == '%') {
+            pending = 0;
+            digits = 0;
+            return false;
+        }
+        if (c == '+' && plusAsSpace) {
+            return scan.accept(' ');
+        }
+        return emit(c);
+    }
+
+    public boolean finish() {
+        return pending >= 0 && flushPending();
+    }
+
+    private boolean flushPending() {
+        boolean matched = scan.accept('%');
+        if (digits == 1) {
+            matched = scan.accept(Character.forDigit(pending, 16)) || matched;
+        }
+        pending = -1;
+        return matched;
+    }
+
+    private boolean emit(char c) {
+        return scan.accept(c > 0xFF ? 0xFF : c);
+    }
+}
@@ -0,0 +1,14 @@
+package com.security.gateway.security.scan;
+
+import lombok.Getter;
+
+@Getter
+public class ThreatDetectedException extends RuntimeException {
+
+    private final String rule;
+
+    public ThreatDetectedException(String rule) {
+        super("Request rejected by threat rule " + rule);
+        this.rule = rule;
+    }
+}
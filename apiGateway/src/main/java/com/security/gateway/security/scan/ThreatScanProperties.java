@@ -0,0 +1,27 @@
+package com.security.gateway.security.scan;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "application.security.threat-scan")
+public class ThreatScanProperties {
+
+    private boolean enabled = true;
+    private boolean scanBody = true;
+    private List<Rule> rules = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Rule {
+        private String id;
+        private List<String> patterns = new ArrayList<>();
+    }
+}
@@ -0,0 +1,17 @@
+package com.security.gateway.security.scan;
+
+public interface ThreatScanner {
+
+    Scan newScan();
+
+    interface Scan {
+
+        boolean accept(int value);
+
+        String matchedRule();
+
+        default boolean matched() {
+            return matchedRule() != null;
+        }
+    }
+}
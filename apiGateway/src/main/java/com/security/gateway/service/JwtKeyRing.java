@@ -0,0 +1,186 @@
+package com.security.gateway.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.*;
+
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    private static final String PUBLIC_KEY_SUFFIX = ".public-key";
+    private static final String PRIVATE_KEY_SUFFIX = ".private-key";
+
+    private final String defaultKeyId;
+    private final String privateKeyString;
+    private final String publicKeyString;
+    private final Path location;
+    private final JwtParser parser;
+
+    private volatile Snapshot snapshot;
+    private volatile long lastModified = -1;
+
+    public JwtKeyRing(
+            @Value("${application.security.jwt.key-id:primary}") String defaultKeyId,
+            @Value("${application.security.jwt.private-key}") String privateKeyString,
+            @Value("${application.security.jwt.public-key}") String publicKeyString,
+            @Value("${application.security.jwt.key-ring.location:}") String location
+    ) {
+        this.defaultKeyId = defaultKeyId;
+        this.privateKeyString = privateKeyString;
+        this.publicKeyString = publicKeyString;
+        this.location = location.isBlank() ? null : Path.of(location);
+        long modified = modifiedTime();
+        this.snapshot = load();
+        this.lastModified = modified;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return getVerificationKey(header.getKeyId());
+                    }
+                })
+                .build();
+    }
+
+    public JwtParser parser() {
+        return parser;
+    }
+
+    public SigningKey currentSigningKey() {
+        Snapshot current = snapshot;
+        return new SigningKey(current.currentKeyId(), current.signingKey());
+    }
+
+    public PublicKey getVerificationKey(String keyId) {
+        PublicKey key = snapshot.verificationKeys().get(keyId == null ? defaultKeyId : keyId);
+        if (key == null) {
+            throw new UnsupportedJwtException("Unknown signing key id: " + keyId);
+        }
+        return key;
+    }
+
+    public String getCurrentKeyId() {
+        return snapshot.currentKeyId();
+    }
+
+    public Set<String> getKeyIds() {
+        return snapshot.verificationKeys().keySet();
+    }
+
+    @Scheduled(fixedDelayString = "${application.security.jwt.key-ring.refresh-interval:30000}")
+    public void reloadIfChanged() {
+        if (location == null) {
+            return;
+        }
+        try {
+            if (modifiedTime() != lastModified) {
+                reload();
+            }
+        } catch (IllegalStateException e) {
+            log.error("Failed to check JWT key ring file {}: {}", location, e.getMessage());
+        }
+    }
+
+    public synchronized void reload() {
+        try {
+            long modified = modifiedTime();
+            snapshot = load();
+            lastModified = modified;
+            log.info("JWT key ring loaded. Current key id: {}, verification keys: {}", snapshot.currentKeyId(), snapshot.verificationKeys().keySet());
+        } catch (Exception e) {
+            log.error("Failed to reload JWT key ring, keeping previous keys: {}", e.getMessage());
+        }
+    }
+
+    private Snapshot load() {
+        Map<String, PublicKey> verificationKeys = new LinkedHashMap<>();
+        Map<String, PrivateKey> signingKeys = new HashMap<>();
+        verificationKeys.put(defaultKeyId, parsePublicKey(publicKeyString));
+        signingKeys.put(defaultKeyId, parsePrivateKey(privateKeyString));
+        String currentKeyId = defaultKeyId;
+
+        Properties ring = readKeyRingFile();
+        for (String name : ring.stringPropertyNames()) {
+            if (name.endsWith(PUBLIC_KEY_SUFFIX)) {
+                String keyId = name.substring(0, name.length() - PUBLIC_KEY_SUFFIX.length());
+                verificationKeys.put(keyId, parsePublicKey(ring.getProperty(name)));
+            } else if (name.endsWith(PRIVATE_KEY_SUFFIX)) {
+                String keyId = name.substring(0, name.length() - PRIVATE_KEY_SUFFIX.length());
+                signingKeys.put(keyId, parsePrivateKey(ring.getProperty(name)));
+            }
+        }
+        String configuredCurrent = ring.getProperty("current");
+        if (configuredCurrent != null) {
+            if (!signingKeys.containsKey(configuredCurrent) || !verificationKeys.containsKey(configuredCurrent)) {
+                throw new IllegalStateException("Key ring current key [" + configuredCurrent + "] needs both a private and a public key");
+            }
+            currentKeyId = configuredCurrent;
+        }
+        return new Snapshot(currentKeyId, signingKeys.get(currentKeyId), Collections.unmodifiableMap(verificationKeys));
+    }
+
+    private Properties readKeyRingFile() {
+        Properties properties = new Properties();
+        if (location == null || !Files.exists(location)) {
+            return properties;
+        }
+        try (Reader reader = Files.newBufferedReader(location)) {
+            properties.load(reader);
+            return properties;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read JWT key ring file " + location, e);
+        }
+    }
+
+    private long modifiedTime() {
+        try {
+            return location != null && Files.exists(location) ? Files.getLastModifiedTime(location).toMillis() : 0;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to check JWT key ring file " + location, e);
+        }
+    }
+
+    private static PrivateKey parsePrivateKey(String encoded) {
+        try {
+            byte[] keyBytes = Base64.getDecoder().decode(encoded.trim());
+            return KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(keyBytes));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to get the private key", e);
+        }
+    }
+
+    private static PublicKey parsePublicKey(String encoded) {
+        try {
+            byte[] keyBytes = Base64.getDecoder().decode(encoded.trim());
+            return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(keyBytes));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to get the public key", e);
+        }
+    }
+
+    public record SigningKey(String keyId, PrivateKey privateKey) {
+    }
+
+    private record Snapshot(String currentKeyId, PrivateKey signingKey, Map<String, PublicKey> verificationKeys) {
+    }
+}
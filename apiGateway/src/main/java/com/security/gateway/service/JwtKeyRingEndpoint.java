@@ -0,0 +1,31 @@
+package com.security.gateway.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Endpoint(id = "jwtkeys")
+@RequiredArgsConstructor
+public class JwtKeyRingEndpoint {
+
+    private final JwtKeyRing keyRing;
+
+    @ReadOperation
+    public Map<String, Object> keys() {
+        return Map.of(
+                "current", keyRing.getCurrentKeyId(),
+                "keyIds", keyRing.getKeyIds()
+        );
+    }
+
+    @WriteOperation
+    public Map<String, Object> reload() {
+        keyRing.reload();
+        return keys();
+    }
+}
@@ -1,29 +1,24 @@
 package com.security.gateway.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.security.Key;
-import java.security.KeyFactory;
-import java.security.spec.PKCS8EncodedKeySpec;
-import java.security.spec.X509EncodedKeySpec;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
-    @Value("${application.security.jwt.private-key}")
-    private String privateKeyString;
-
-    @Value("${application.security.jwt.public-key}")
-    private String publicKeyString;
+    private final JwtKeyRing keyRing;
 
     @Value("${application.security.jwt.expiration}")
     private long jwtExpiration;
@@ -50,12 +45,13 @@ public class JwtService {
     }
 
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getVerificationKey())
-                .build()
+        return getClaimsFromToken(token).getSubject();
+    }
+
+    public Claims getClaimsFromToken(String token) {
+        return keyRing.parser()
                 .parseClaimsJws(token)
                 .getBody();
-        return claims.getSubject();
     }
 
 
@@ -120,13 +116,15 @@ public class JwtService {
             UserDetails userDetails,
             long expiration
     ) {
+        JwtKeyRing.SigningKey signingKey = keyRing.currentSigningKey();
         return Jwts
                 .builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.keyId())
                 .setClaims(extraClaims)
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.RS256)
+                .signWith(signingKey.privateKey(), SignatureAlgorithm.RS256)
                 .compact();
     }
 
@@ -144,36 +142,8 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getVerificationKey())
-                .build()
+        return keyRing.parser()
                 .parseClaimsJws(token)
                 .getBody();
     }
-
-    private Key getSignInKey() {
-        byte[] privateKeyBytes = Base64.getDecoder().decode(privateKeyString);
-        PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(privateKeyBytes);
-
-        try {
-            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
-            return keyFactory.generatePrivate(keySpec);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to get the private key", e);
-        }
-    }
-
-    private Key getVerificationKey() {
-        byte[] publicKeyBytes = Base64.getDecoder().decode(publicKeyString);
-        X509EncodedKeySpec keySpec = new X509EncodedKeySpec(publicKeyBytes);
-
-        try {
-            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
-            return keyFactory.generatePublic(keySpec);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to get the public key", e);
-        }
-    }
 }
-
@@ -0,0 +1,119 @@
+package com.security.gateway.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+public class ReactiveJwtVerifier {
+
+    private final JwtKeyRing keyRing;
+    private final AsyncCache<String, Verification> verifications;
+    private final Scheduler scheduler;
+    private final Timer verificationTimer;
+
+    public ReactiveJwtVerifier(
+            JwtKeyRing keyRing,
+            MeterRegistry meterRegistry,
+            @Value("${application.security.jwt.verification.maximum-size:100000}") long maximumSize,
+            @Value("${application.security.jwt.verification.maximum-ttl:PT5M}") Duration maximumTtl,
+            @Value("${application.security.jwt.verification.negative-ttl:PT30S}") Duration negativeTtl,
+            @Value("${application.security.jwt.verification.threads:0}") int threads,
+            @Value("${application.security.jwt.verification.queue-size:10000}") int queueSize
+    ) {
+        this.keyRing = keyRing;
+        this.verifications = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new VerificationExpiry(maximumTtl.toNanos(), negativeTtl.toNanos()))
+                .recordStats()
+                .buildAsync();
+        this.scheduler = Schedulers.newBoundedElastic(
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+                queueSize,
+                "jwt-verify");
+        this.verificationTimer = Timer.builder("gateway.jwt.verification")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, verifications, "gateway.jwt.verifications");
+    }
+
+    public Mono<Verification> verify(String token) {
+        return verify(token, TokenDigest.of(token));
+    }
+
+    public Mono<Verification> verify(String token, String digest) {
+        return Mono.fromFuture(() -> verifications.get(digest, (key, executor) ->
+                Mono.fromCallable(() -> verifyNow(token))
+                        .subscribeOn(scheduler)
+                        .toFuture()), true);
+    }
+
+    @PreDestroy
+    void close() {
+        scheduler.dispose();
+    }
+
+    private Verification verifyNow(String token) {
+        long started = System.nanoTime();
+        try {
+            Claims claims = keyRing.parser().parseClaimsJws(token).getBody();
+            long expiresAt = claims.getExpiration() == null ? Long.MAX_VALUE : claims.getExpiration().getTime();
+            return new Verification(claims, expiresAt);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected JWT: {}", e.getMessage());
+            return Verification.INVALID;
+        } finally {
+            verificationTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public record Verification(Claims claims, long expiresAtMillis) {
+
+        static final Verification INVALID = new Verification(null, 0);
+
+        public boolean valid() {
+            return claims != null;
+        }
+    }
+
+    private record VerificationExpiry(long maximumTtlNanos, long negativeTtlNanos) implements Expiry<String, Verification> {
+
+        @Override
+        public long expireAfterCreate(String key, Verification value, long currentTime) {
+            if (!value.valid()) {
+                return negativeTtlNanos;
+            }
+            long remainingMillis = value.expiresAtMillis() - System.currentTimeMillis();
+            if (remainingMillis <= 0) {
+                return 0;
+            }
+            return Math.min(maximumTtlNanos, Duration.ofMillis(remainingMillis).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Verification value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Verification value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
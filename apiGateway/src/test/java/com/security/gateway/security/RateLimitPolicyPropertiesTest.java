@@ -0,0 +1,32 @@
+package com.security.gateway.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.PropertySourcesPlaceholdersResolver;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitPolicyPropertiesTest {
+
+    @Test
+    void roleKeysKeepTheirUnderscoreWhenBoundFromApplicationYaml() throws IOException {
+        MutablePropertySources sources = new MutablePropertySources();
+        new YamlPropertySourceLoader().load("application", new ClassPathResource("application.yml"))
+                .forEach(sources::addLast);
+        Binder binder = new Binder(ConfigurationPropertySources.from(sources), new PropertySourcesPlaceholdersResolver(sources));
+
+        RateLimitPolicyProperties properties = binder
+                .bind("application.security.rate-limit.policies", RateLimitPolicyProperties.class)
+                .get();
+
+        assertThat(properties.getRoles()).containsOnlyKeys("ROLE_SUPER-ADMIN");
+        assertThat(properties.getRoles().get("ROLE_SUPER-ADMIN").getReplenishRate()).isEqualTo(50);
+        assertThat(properties.getRoles().get("ROLE_SUPER-ADMIN").getBurstCapacity()).isEqualTo(100);
+    }
+}
@@ -0,0 +1,56 @@
+package com.security.gateway.security;
+
+import com.security.gateway.service.TokenDigest;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RevokedTokenIndexBloomFilterTest {
+
+    @Test
+    void neverReportsAnInsertedDigestAsAbsent() {
+        RevokedTokenIndex.BloomFilter filter = new RevokedTokenIndex.BloomFilter(10_000, 0.001);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(TokenDigest.sha256("revoked-" + i));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain(TokenDigest.sha256("revoked-" + i))).isTrue();
+        }
+        assertThat(filter.insertions()).isEqualTo(10_000);
+    }
+
+    @Test
+    void keepsFalsePositivesNearTheConfiguredRate() {
+        RevokedTokenIndex.BloomFilter filter = new RevokedTokenIndex.BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(TokenDigest.sha256("revoked-" + i));
+        }
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(TokenDigest.sha256("valid-" + i))) {
+                falsePositives++;
+            }
+        }
+        assertThat((double) falsePositives / probes).isLessThan(0.02);
+    }
+
+    @Test
+    void startsEmpty() {
+        RevokedTokenIndex.BloomFilter filter = new RevokedTokenIndex.BloomFilter(1, 0.001);
+
+        assertThat(filter.mightContain(TokenDigest.sha256("anything"))).isFalse();
+        assertThat(filter.insertions()).isZero();
+
+        filter.put(TokenDigest.sha256("anything"));
+        assertThat(filter.mightContain(TokenDigest.sha256("anything"))).isTrue();
+    }
+
+    @Test
+    void ordersStreamIdsNumerically() {
+        assertThat(RevokedTokenIndex.compareStreamIds("1700000000010-0", "1700000000009-5")).isPositive();
+        assertThat(RevokedTokenIndex.compareStreamIds("1700000000009-10", "1700000000009-9")).isPositive();
+        assertThat(RevokedTokenIndex.compareStreamIds("1700000000009-1", "1700000000009-1")).isZero();
+        assertThat(RevokedTokenIndex.compareStreamIds("0-0", "1700000000009-1")).isNegative();
+    }
+}
@@ -0,0 +1,67 @@
+package com.security.gateway.security.scan;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AhoCorasickAutomatonTest {
+
+    @Test
+    void reportsOverlappingPatternsAsSoonAsTheFirstOneCompletes() {
+        AhoCorasickAutomaton automaton = AhoCorasickAutomaton.compile(
+                List.of("he", "she", "hers", "his"), List.of(0, 1, 2, 3));
+
+        assertThat(firstMatch(automaton, "ushers")).isEqualTo(new Match(1, 3));
+        assertThat(firstMatch(automaton, "ahis")).isEqualTo(new Match(3, 3));
+        assertThat(firstMatch(automaton, "xhe")).isEqualTo(new Match(0, 2));
+    }
+
+    @Test
+    void followsFailureLinksIntoPatternsThatEndInsideALongerOne() {
+        AhoCorasickAutomaton automaton = AhoCorasickAutomaton.compile(List.of("abcd", "bc"), List.of(0, 1));
+
+        assertThat(firstMatch(automaton, "abcx")).isEqualTo(new Match(1, 2));
+        assertThat(firstMatch(automaton, "aabcd")).isEqualTo(new Match(1, 3));
+    }
+
+    @Test
+    void foldsAsciiCaseInPatternsAndInput() {
+        AhoCorasickAutomaton automaton = AhoCorasickAutomaton.compile(
+                List.of("union select", "DROP TABLE"), List.of(0, 1));
+
+        assertThat(firstMatch(automaton, "1 UnIoN SeLeCt 2")).isEqualTo(new Match(0, 13));
+        assertThat(firstMatch(automaton, "; drop table x")).isEqualTo(new Match(1, 11));
+    }
+
+    @Test
+    void keepsTheFirstOutputForDuplicatePatterns() {
+        AhoCorasickAutomaton automaton = AhoCorasickAutomaton.compile(List.of("x", "x"), List.of(0, 5));
+
+        assertThat(firstMatch(automaton, "x")).isEqualTo(new Match(0, 0));
+    }
+
+    @Test
+    void doesNotMatchBenignInput() {
+        AhoCorasickAutomaton automaton = AhoCorasickAutomaton.compile(List.of("<script", "' or "), List.of(0, 1));
+
+        assertThat(firstMatch(automaton, "page=0&size=25&sort=createdAt,desc")).isNull();
+    }
+
+    private static Match firstMatch(AhoCorasickAutomaton automaton, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int state = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            state = automaton.next(state, bytes[i]);
+            if (automaton.output(state) >= 0) {
+                return new Match(automaton.output(state), i);
+            }
+        }
+        return null;
+    }
+
+    private record Match(int output, int end) {
+    }
+}
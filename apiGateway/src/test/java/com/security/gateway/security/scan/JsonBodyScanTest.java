@@ -0,0 +1,73 @@
+package com.security.gateway.security.scan;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+
+import static com.security.gateway.security.scan.PercentDecodingScanTest.rule;
+import static com.security.gateway.security.scan.PercentDecodingScanTest.scanner;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonBodyScanTest {
+
+    private final ThreatScanner scanner = scanner(rule("xss", "<script"), rule("newline", "a\nb"));
+
+    @Test
+    void decodesUnicodeEscapesBeforeMatching() {
+        JsonBodyScan scan = new JsonBodyScan(scanner.newScan());
+
+        assertThat(scan.accept(buffer("{\"q\":\"\\u003cscript>\"}"))).isTrue();
+        assertThat(scan.matchedRule()).isEqualTo("xss");
+    }
+
+    @Test
+    void acceptsUpperCaseHexInUnicodeEscapes() {
+        JsonBodyScan scan = new JsonBodyScan(scanner.newScan());
+
+        assertThat(scan.accept(buffer("\"\\u003CSCRIPT\""))).isTrue();
+    }
+
+    @Test
+    void keepsEscapeStateAcrossBufferBoundaries() {
+        JsonBodyScan splitInsideUnicode = new JsonBodyScan(scanner.newScan());
+        assertThat(splitInsideUnicode.accept(buffer("{\"q\":\"\\u00"))).isFalse();
+        assertThat(splitInsideUnicode.accept(buffer("3cscript\"}"))).isTrue();
+
+        JsonBodyScan splitAfterBackslash = new JsonBodyScan(scanner.newScan());
+        assertThat(splitAfterBackslash.accept(buffer("{\"q\":\"\\"))).isFalse();
+        assertThat(splitAfterBackslash.accept(buffer("u003cscript\"}"))).isTrue();
+
+        JsonBodyScan splitInsidePattern = new JsonBodyScan(scanner.newScan());
+        assertThat(splitInsidePattern.accept(buffer("{\"q\":\"<scr"))).isFalse();
+        assertThat(splitInsidePattern.accept(buffer("ipt\"}"))).isTrue();
+    }
+
+    @Test
+    void decodesShortEscapes() {
+        JsonBodyScan scan = new JsonBodyScan(scanner.newScan());
+
+        assertThat(scan.accept(buffer("\"a\\nb\""))).isTrue();
+        assertThat(scan.matchedRule()).isEqualTo("newline");
+    }
+
+    @Test
+    void treatsAMalformedUnicodeEscapeAsLiteralInput() {
+        JsonBodyScan scan = new JsonBodyScan(scanner.newScan());
+
+        assertThat(scan.accept(buffer("\"\\u00<script\""))).isTrue();
+    }
+
+    @Test
+    void doesNotMatchBenignBodies() {
+        JsonBodyScan scan = new JsonBodyScan(scanner.newScan());
+
+        assertThat(scan.accept(buffer("{\"name\":\"plant \\\"north\\\"\",\"size\":25}"))).isFalse();
+        assertThat(scan.matchedRule()).isNull();
+    }
+
+    private static DataBuffer buffer(String json) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,74 @@
+package com.security.gateway.security.scan;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PercentDecodingScanTest {
+
+    private final ThreatScanner scanner = scanner(
+            rule("xss", "<script"),
+            rule("sql-injection", "' or "),
+            rule("literal-percent", "%g", "%4g"));
+
+    @Test
+    void decodesPercentEscapesBeforeMatching() {
+        assertThat(PercentDecodingScan.scan(scanner, "q=%3Cscript%3E", false)).isEqualTo("xss");
+        assertThat(PercentDecodingScan.scan(scanner, "q=%3cScRiPt", false)).isEqualTo("xss");
+    }
+
+    @Test
+    void treatsPlusAsSpaceOnlyWhenAsked() {
+        assertThat(PercentDecodingScan.scan(scanner, "name=%27+or+1", true)).isEqualTo("sql-injection");
+        assertThat(PercentDecodingScan.scan(scanner, "name=%27+or+1", false)).isNull();
+    }
+
+    @Test
+    void passesTruncatedEscapesThroughLiterally() {
+        assertThat(PercentDecodingScan.scan(scanner, "a%g", false)).isEqualTo("literal-percent");
+        assertThat(PercentDecodingScan.scan(scanner, "a%4g", false)).isEqualTo("literal-percent");
+    }
+
+    @Test
+    void toleratesAnEscapeTruncatedAtTheEndOfInput() {
+        assertThat(PercentDecodingScan.scan(scanner, "abc%", false)).isNull();
+        assertThat(PercentDecodingScan.scan(scanner, "abc%3", false)).isNull();
+        assertThat(PercentDecodingScan.scan(scanner(rule("trailing", "c%3")), "abc%3", false)).isEqualTo("trailing");
+    }
+
+    @Test
+    void keepsStateAcrossIncrementalInput() {
+        ThreatScanner.Scan scan = scanner.newScan();
+        PercentDecodingScan decoder = new PercentDecodingScan(scan, false);
+        for (char c : "q=%3".toCharArray()) {
+            assertThat(decoder.accept(c)).isFalse();
+        }
+        boolean matched = false;
+        for (char c : "Cscript".toCharArray()) {
+            matched = decoder.accept(c);
+        }
+        assertThat(matched).isTrue();
+        assertThat(scan.matchedRule()).isEqualTo("xss");
+    }
+
+    @Test
+    void returnsNullForEmptyInput() {
+        assertThat(PercentDecodingScan.scan(scanner, "", false)).isNull();
+        assertThat(PercentDecodingScan.scan(scanner, null, false)).isNull();
+    }
+
+    static ThreatScanner scanner(ThreatScanProperties.Rule... rules) {
+        ThreatScanProperties properties = new ThreatScanProperties();
+        properties.setRules(List.of(rules));
+        return new AhoCorasickThreatScanner(properties);
+    }
+
+    static ThreatScanProperties.Rule rule(String id, String... patterns) {
+        ThreatScanProperties.Rule rule = new ThreatScanProperties.Rule();
+        rule.setId(id);
+        rule.setPatterns(List.of(patterns));
+        return rule;
+    }
+}
@@ -0,0 +1,73 @@
+package com.security.gateway.security.scan;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThreatScannerBenchmark {
+
+    private static final Pattern SQL_INJECTION_PATTERN = Pattern.compile("([a-zA-Z0-9_\\-]+)([\\<\\>\\'\\\"\\=\\(\\)])+");
+    private static final Pattern XSS_PATTERN = Pattern.compile("<script>(.*?)</script>", Pattern.CASE_INSENSITIVE);
+
+    @Param({"benign", "attack", "adversarial"})
+    private String payload;
+
+    private String query;
+    private ThreatScanner scanner;
+
+    @Setup
+    public void setup() {
+        query = switch (payload) {
+            case "benign" -> "page=0&size=25&sort=createdAt,desc&filter=plant%20north&region=eu-west-1";
+            case "attack" -> "page=0&size=25&name=%27%20or%201%3D1--&q=%3Cscript%3Ealert(1)%3C%2Fscript%3E";
+            default -> "q=<script>" + "a".repeat(4096);
+        };
+        ThreatScanProperties properties = new ThreatScanProperties();
+        properties.setRules(List.of(
+                rule("sql-injection", "' or ", " or 1=1", "'--", "union select", "drop table", "sleep("),
+                rule("xss", "<script", "</script", "javascript:", "onerror=", "onload=", "document.cookie")));
+        scanner = new AhoCorasickThreatScanner(properties);
+    }
+
+    @Benchmark
+    public boolean regex() {
+        return SQL_INJECTION_PATTERN.matcher(query).find() || XSS_PATTERN.matcher(query).find();
+    }
+
+    @Benchmark
+    public String automaton() {
+        return PercentDecodingScan.scan(scanner, query, true);
+    }
+
+    private static ThreatScanProperties.Rule rule(String id, String... patterns) {
+        ThreatScanProperties.Rule rule = new ThreatScanProperties.Rule();
+        rule.setId(id);
+        rule.setPatterns(List.of(patterns));
+        return rule;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ThreatScannerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,60 @@
+package com.security.gas.plant.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Set;
+
+@Slf4j
+@Component
+public class GatewayCachePurgeInterceptor implements HandlerInterceptor {
+
+    private static final String API_PREFIX = "/api/v1/";
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final String channel;
+
+    public GatewayCachePurgeInterceptor(
+            StringRedisTemplate redisTemplate,
+            @Value("${application.security.gateway-cache-purge.enabled:true}") boolean enabled,
+            @Value("${application.security.gateway-cache-purge.channel:gateway-cache-purge}") String channel
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.channel = channel;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!enabled || ex != null || SAFE_METHODS.contains(request.getMethod())
+                || response.getStatus() < 200 || response.getStatus() >= 300) {
+            return;
+        }
+        String resource = resourceOf(request.getRequestURI().substring(request.getContextPath().length()));
+        if (resource == null) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(channel, resource);
+        } catch (DataAccessException e) {
+            log.warn("Failed to publish gateway cache purge for {}: {}", resource, e.getMessage());
+        }
+    }
+
+    private static String resourceOf(String path) {
+        if (!path.startsWith(API_PREFIX)) {
+            return null;
+        }
+        int end = path.indexOf('/', API_PREFIX.length());
+        String resource = end < 0 ? path : path.substring(0, end);
+        return resource.length() > API_PREFIX.length() ? resource : null;
+    }
+}
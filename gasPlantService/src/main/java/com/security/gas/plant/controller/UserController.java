@@ -47,10 +47,11 @@ public class UserController {
 
     @PostMapping("/api/v1/auth/login")
     public ResponseEntity<ApiResponse<UserAuthenticationResponse>> authenticate(
-            @RequestBody UserAuthenticationRequest request
+            @RequestBody UserAuthenticationRequest request,
+            HttpServletRequest httpRequest
     ) {
         try {
-            UserAuthenticationResponse response = service.authenticate(request);
+            UserAuthenticationResponse response = service.authenticate(request, httpRequest);
             ApiResponse<UserAuthenticationResponse> apiResponse = ApiResponse
                     .<UserAuthenticationResponse>builder()
                     .status(SUCCESS)
@@ -1,10 +1,15 @@
 package com.security.gas.plant.entity;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -33,12 +38,40 @@ public class RoleEntity {
     @OneToMany(mappedBy = "role")
     private Set<User> users = new HashSet<>();
 
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient volatile Set<GrantedAuthority> grantedAuthorities;
+
     public RoleEntity(Long id, String roleName, Set<PermissionEntity> permissions) {
         this.id = id;
         this.name = roleName;
         this.permissions = permissions;
     }
 
+    public void setName(String name) {
+        this.name = name;
+        this.grantedAuthorities = null;
+    }
+
+    public void setPermissions(Set<PermissionEntity> permissions) {
+        this.permissions = permissions;
+        this.grantedAuthorities = null;
+    }
+
+    public Set<GrantedAuthority> grantedAuthorities() {
+        Set<GrantedAuthority> authorities = grantedAuthorities;
+        if (authorities == null) {
+            Set<GrantedAuthority> built = new HashSet<>(permissions.size() + 1);
+            built.add(new SimpleGrantedAuthority("ROLE_" + name));
+            built.addAll(permissions);
+            authorities = Set.copyOf(built);
+            grantedAuthorities = authorities;
+        }
+        return authorities;
+    }
+
     public Set<GrantedAuthority> getAuthorities() {
         return permissions.stream()
                 .map(permission -> (GrantedAuthority) permission)
@@ -0,0 +1,19 @@
+package com.security.gas.plant.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.TOO_MANY_REQUESTS)
+public class LoginThrottledException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -8,10 +8,12 @@ import com.security.gas.plant.repository.*;
 import com.security.gas.plant.requests.registrationrequest.UserRegisterRequest;
 import com.security.gas.plant.service.DistributorService;
 import com.security.gas.plant.service.OrganizationService;
+import com.security.gas.plant.service.PermissionCatalog;
 import com.security.gas.plant.service.RegionService;
 import com.security.gas.plant.service.UserService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -34,6 +36,7 @@ public class UserFacade {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final PermissionRepository permissionRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public UserDetailsDto getUserDetailsById(Integer userId) {
         User user = userService.getUserById(userId);
@@ -151,6 +154,7 @@ public class UserFacade {
     public PermissionResponseDto createPermission(PermissionRequestDto permissionRequestDto) {
         PermissionEntity permission = new PermissionEntity(null, permissionRequestDto.getName());
         PermissionEntity savedPermission = permissionRepository.save(permission);
+        eventPublisher.publishEvent(new PermissionCatalog.PermissionsChangedEvent());
         return PermissionDtoMapper.toPermissionResponseDto(savedPermission);
     }
 }
\ No newline at end of file
@@ -0,0 +1,221 @@
+package com.security.gas.plant.security.userauthentication;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.security.gas.plant.exception.LoginThrottledException;
+import com.security.gas.plant.security.usertoken.TokenDigest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class LoginThrottle {
+
+    private static final RedisScript<Long> CHECK_SCRIPT = new DefaultRedisScript<>("""
+            local now = tonumber(ARGV[1])
+            redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - tonumber(ARGV[2]))
+            local failures = redis.call('ZCARD', KEYS[1])
+            local threshold = tonumber(ARGV[3])
+            if failures < threshold then
+                return 0
+            end
+            local last = redis.call('ZRANGE', KEYS[1], -1, -1, 'WITHSCORES')
+            local delay = math.min(tonumber(ARGV[4]) * 2 ^ (failures - threshold), tonumber(ARGV[5]))
+            return math.max(0, math.floor(tonumber(last[2]) + delay - now))
+            """, Long.class);
+
+    private static final RedisScript<Long> RECORD_FAILURE_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('ZADD', KEYS[1], ARGV[1], ARGV[2])
+            redis.call('PEXPIRE', KEYS[1], ARGV[3])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int accountThreshold;
+    private final int ipThreshold;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final boolean trustForwardedFor;
+    private final Set<String> trustedProxies;
+    private final Cache<String, Deque<Long>> localFailures;
+    private final Counter throttled;
+    private final Counter fallbacks;
+
+    public LoginThrottle(
+            StringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${application.security.login-throttle.enabled:true}") boolean enabled,
+            @Value("${application.security.login-throttle.window:900000}") long windowMillis,
+            @Value("${application.security.login-throttle.account-threshold:5}") int accountThreshold,
+            @Value("${application.security.login-throttle.ip-threshold:50}") int ipThreshold,
+            @Value("${application.security.login-throttle.base-delay:1000}") long baseDelayMillis,
+            @Value("${application.security.login-throttle.max-delay:900000}") long maxDelayMillis,
+            @Value("${application.security.login-throttle.trust-forwarded-for:true}") boolean trustForwardedFor,
+            @Value("${application.security.login-throttle.trusted-proxies:127.0.0.1,0:0:0:0:0:0:0:1,::1}") String[] trustedProxies,
+            @Value("${application.security.login-throttle.local-maximum-size:100000}") long localMaximumSize
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.windowMillis = windowMillis;
+        this.accountThreshold = accountThreshold;
+        this.ipThreshold = ipThreshold;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.trustedProxies = Arrays.stream(trustedProxies)
+                .map(String::trim)
+                .filter(proxy -> !proxy.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        if (trustForwardedFor && this.trustedProxies.isEmpty()) {
+            log.warn("Login throttle trust-forwarded-for is enabled without trusted-proxies; X-Forwarded-For will be ignored");
+        }
+        this.trustForwardedFor = trustForwardedFor && !this.trustedProxies.isEmpty();
+        this.localFailures = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterAccess(Duration.ofMillis(windowMillis))
+                .build();
+        this.throttled = meterRegistry.counter("auth.login.throttled");
+        this.fallbacks = meterRegistry.counter("auth.login.throttle.fallback");
+    }
+
+    public String clientIp(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if (!trustForwardedFor || !trustedProxies.contains(remoteAddr)) {
+            return remoteAddr;
+        }
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (forwardedFor == null || forwardedFor.isBlank()) {
+            return remoteAddr;
+        }
+        String[] hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!trustedProxies.contains(hop)) {
+                return hop.isEmpty() ? remoteAddr : hop;
+            }
+        }
+        return remoteAddr;
+    }
+
+    public void checkAllowed(String email, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        String accountKey = accountKey(email);
+        String ipKey = ipKey(clientIp);
+        long retryAfterMillis;
+        try {
+            long now = System.currentTimeMillis();
+            retryAfterMillis = Math.max(
+                    redisRetryAfter(accountKey, accountThreshold, now),
+                    redisRetryAfter(ipKey, ipThreshold, now));
+        } catch (DataAccessException ex) {
+            fallbacks.increment();
+            log.warn("Login throttle falling back to in-process counters: {}", ex.getMessage());
+            retryAfterMillis = Math.max(
+                    localRetryAfter(accountKey, accountThreshold),
+                    localRetryAfter(ipKey, ipThreshold));
+        }
+        if (retryAfterMillis > 0) {
+            throttled.increment();
+            throw new LoginThrottledException("Too many failed login attempts, please retry later",
+                    Math.max(1, (retryAfterMillis + 999) / 1000));
+        }
+    }
+
+    public void recordFailure(String email, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        String accountKey = accountKey(email);
+        String ipKey = ipKey(clientIp);
+        long now = System.currentTimeMillis();
+        try {
+            String member = now + ":" + ThreadLocalRandom.current().nextLong();
+            redisTemplate.execute(RECORD_FAILURE_SCRIPT, List.of(accountKey),
+                    Long.toString(now), member, Long.toString(windowMillis));
+            redisTemplate.execute(RECORD_FAILURE_SCRIPT, List.of(ipKey),
+                    Long.toString(now), member, Long.toString(windowMillis));
+        } catch (DataAccessException ex) {
+            fallbacks.increment();
+            log.warn("Recording failed login in-process only: {}", ex.getMessage());
+            recordLocalFailure(accountKey, now);
+            recordLocalFailure(ipKey, now);
+        }
+    }
+
+    public void recordSuccess(String email) {
+        if (!enabled) {
+            return;
+        }
+        String accountKey = accountKey(email);
+        localFailures.invalidate(accountKey);
+        try {
+            redisTemplate.delete(accountKey);
+        } catch (DataAccessException ex) {
+            log.warn("Could not reset login throttle for account: {}", ex.getMessage());
+        }
+    }
+
+    private long redisRetryAfter(String key, int threshold, long now) {
+        Long result = redisTemplate.execute(CHECK_SCRIPT, List.of(key),
+                Long.toString(now),
+                Long.toString(windowMillis),
+                Integer.toString(threshold),
+                Long.toString(baseDelayMillis),
+                Long.toString(maxDelayMillis));
+        return result == null ? 0 : result;
+    }
+
+    private long localRetryAfter(String key, int threshold) {
+        Deque<Long> failures = localFailures.getIfPresent(key);
+        if (failures == null) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (failures) {
+            while (!failures.isEmpty() && failures.peekFirst() <= now - windowMillis) {
+                failures.pollFirst();
+            }
+            if (failures.size() < threshold) {
+                return 0;
+            }
+            double delay = Math.min(baseDelayMillis * Math.pow(2, failures.size() - threshold), maxDelayMillis);
+            return Math.max(0, failures.peekLast() + (long) delay - now);
+        }
+    }
+
+    private void recordLocalFailure(String key, long now) {
+        Deque<Long> failures = localFailures.get(key, k -> new ArrayDeque<>());
+        synchronized (failures) {
+            failures.addLast(now);
+        }
+    }
+
+    private static String accountKey(String email) {
+        return "lt:a:" + TokenDigest.of(email == null ? "" : email.toLowerCase(Locale.ROOT));
+    }
+
+    private static String ipKey(String clientIp) {
+        return "lt:i:" + clientIp;
+    }
+}
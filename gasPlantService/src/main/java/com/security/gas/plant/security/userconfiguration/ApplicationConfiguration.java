@@ -1,7 +1,9 @@
 package com.security.gas.plant.security.userconfiguration;
 
 import com.security.gas.plant.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -17,6 +19,18 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 @RequiredArgsConstructor
 public class ApplicationConfiguration {
 
+    @Value("${application.security.password-hashing.threads:0}")
+    private int hashingThreads;
+
+    @Value("${application.security.password-hashing.queue-capacity:64}")
+    private int hashingQueueCapacity;
+
+    @Value("${application.security.password-hashing.timeout:5000}")
+    private long hashingTimeout;
+
+    @Value("${application.security.password-hashing.retry-after:2}")
+    private long hashingRetryAfter;
+
     private final UserRepository repository;
 
     @Bean
@@ -26,10 +40,10 @@ public class ApplicationConfiguration {
     }
 
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
@@ -39,7 +53,15 @@ public class ApplicationConfiguration {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(
+                new BCryptPasswordEncoder(),
+                threads,
+                hashingQueueCapacity,
+                hashingTimeout,
+                hashingRetryAfter,
+                meterRegistry
+        );
     }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.security.gas.plant.security.userconfiguration;
+
+import com.security.gas.plant.exception.PasswordHashingOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final long retryAfterSeconds;
+    private final Timer queueTimer;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(
+            PasswordEncoder delegate,
+            int threads,
+            int queueCapacity,
+            long timeoutMillis,
+            long retryAfterSeconds,
+            MeterRegistry meterRegistry
+    ) {
+        this.delegate = delegate;
+        this.timeoutMillis = timeoutMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.queueTimer = meterRegistry.timer("password.hashing.queue");
+        this.encodeTimer = meterRegistry.timer("password.hashing.duration", "operation", "encode");
+        this.matchesTimer = meterRegistry.timer("password.hashing.duration", "operation", "matches");
+        this.rejected = meterRegistry.counter("password.hashing.rejected");
+        meterRegistry.gauge("password.hashing.queue.size", executor, pool -> pool.getQueue().size());
+        meterRegistry.gauge("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T submit(Timer hashTimer, Supplier<T> hashing) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return hashTimer.record(hashing);
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw overloaded();
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw overloaded();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw overloaded();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private PasswordHashingOverloadedException overloaded() {
+        return new PasswordHashingOverloadedException(
+                "Too many concurrent authentication requests, please retry later", retryAfterSeconds);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
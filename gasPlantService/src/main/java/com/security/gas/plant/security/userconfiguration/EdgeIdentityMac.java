@@ -0,0 +1,40 @@
+package com.security.gas.plant.security.userconfiguration;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+final class EdgeIdentityMac {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final ThreadLocal<Mac> mac;
+
+    private EdgeIdentityMac(String secret) {
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(HMAC_ALGORITHM);
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Failed to initialise edge identity MAC", e);
+            }
+        });
+    }
+
+    static EdgeIdentityMac forSecret(boolean enabled, String secret) {
+        if (!enabled) {
+            return null;
+        }
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("application.security.edge-identity.secret must be set when edge identity is enabled");
+        }
+        return new EdgeIdentityMac(secret);
+    }
+
+    byte[] sign(String signingInput) {
+        return mac.get().doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+    }
+}
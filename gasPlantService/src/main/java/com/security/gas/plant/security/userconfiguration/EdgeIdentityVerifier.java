@@ -0,0 +1,88 @@
+package com.security.gas.plant.security.userconfiguration;
+
+import com.security.gas.plant.security.usertoken.TokenDigest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+@Slf4j
+@Component
+public class EdgeIdentityVerifier {
+
+    public static final String HEADER = "X-Edge-Identity";
+    private static final String VERSION = "v2";
+    private static final int FIELD_COUNT = 6;
+
+    private final EdgeIdentityMac mac;
+
+    public EdgeIdentityVerifier(
+            @Value("${application.security.edge-identity.enabled:false}") boolean enabled,
+            @Value("${application.security.edge-identity.secret:}") String secret
+    ) {
+        this.mac = EdgeIdentityMac.forSecret(enabled, secret);
+    }
+
+    public boolean isEnabled() {
+        return mac != null;
+    }
+
+    public Optional<EdgeIdentity> verify(String header, String bearerToken) {
+        if (mac == null || header == null || bearerToken == null) {
+            return Optional.empty();
+        }
+        int signatureSeparator = header.lastIndexOf('.');
+        if (!header.startsWith(VERSION + ".") || signatureSeparator <= VERSION.length()) {
+            return Optional.empty();
+        }
+        try {
+            String signingInput = header.substring(0, signatureSeparator);
+            byte[] expected = mac.sign(signingInput);
+            byte[] presented = Base64.getUrlDecoder().decode(header.substring(signatureSeparator + 1));
+            if (!MessageDigest.isEqual(expected, presented)) {
+                log.warn("Edge identity header rejected: signature mismatch");
+                return Optional.empty();
+            }
+            String payload = new String(Base64.getUrlDecoder().decode(signingInput.substring(VERSION.length() + 1)), StandardCharsets.UTF_8);
+            String[] fields = payload.split("\n", -1);
+            if (fields.length != FIELD_COUNT) {
+                return Optional.empty();
+            }
+            byte[] boundDigest = fields[5].getBytes(StandardCharsets.US_ASCII);
+            byte[] presentedDigest = TokenDigest.of(bearerToken).getBytes(StandardCharsets.US_ASCII);
+            if (!MessageDigest.isEqual(boundDigest, presentedDigest)) {
+                log.warn("Edge identity header rejected: bound to a different bearer token");
+                return Optional.empty();
+            }
+            long expiresAt = Long.parseLong(fields[1]);
+            if (expiresAt * 1000 <= System.currentTimeMillis()) {
+                return Optional.empty();
+            }
+            String permissionBits = fields[4].isEmpty() ? null : fields[4];
+            return Optional.of(new EdgeIdentity(fields[0], expiresAt, split(fields[2]), split(fields[3]), permissionBits));
+        } catch (IllegalArgumentException e) {
+            log.warn("Edge identity header rejected: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static List<String> split(String value) {
+        return value.isEmpty() ? Collections.emptyList() : Arrays.asList(value.split(","));
+    }
+
+    public record EdgeIdentity(
+            String subject,
+            long expiresAt,
+            List<String> roles,
+            List<String> permissions,
+            String permissionBits
+    ) {
+    }
+}
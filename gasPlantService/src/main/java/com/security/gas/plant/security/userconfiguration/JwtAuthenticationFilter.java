@@ -1,20 +1,21 @@
 package com.security.gas.plant.security.userconfiguration;
 
-import com.security.gas.plant.entity.PermissionEntity;
 import com.security.gas.plant.entity.User;
-import com.security.gas.plant.repository.PermissionRepository;
+import com.security.gas.plant.exception.RedisDownException;
+import com.security.gas.plant.security.usertoken.TokenAuditWriter;
+import com.security.gas.plant.security.usertoken.TokenDigest;
 import com.security.gas.plant.security.usertoken.TokenRepository;
+import com.security.gas.plant.service.PermissionCatalog;
 import com.security.gas.plant.service.RedisTokenService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.redis.core.RedisTemplate;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -25,6 +26,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 import java.util.*;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -32,9 +34,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
     private final TokenRepository tokenRepository;
-    private final PermissionRepository permissionRepository;
+    private final PermissionCatalog permissionCatalog;
     private final RedisTokenService redisTokenService;
-    private final RedisTemplate redisTemplate;
+    private final EdgeIdentityVerifier edgeIdentityVerifier;
+    private final PrincipalCache principalCache;
+    private final TokenAuditWriter tokenAuditWriter;
 
     @Override
     protected void doFilterInternal(
@@ -57,22 +61,56 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
         final String jwt = authHeader.substring(7);
-        if (redisTokenService.isTokenBlacklisted(jwt)) {
-            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-            return;
+        if (edgeIdentityVerifier.isEnabled()) {
+            String edgeHeader = request.getHeader(EdgeIdentityVerifier.HEADER);
+            if (edgeHeader != null) {
+                Optional<EdgeIdentityVerifier.EdgeIdentity> identity = edgeIdentityVerifier.verify(edgeHeader, jwt);
+                if (identity.isEmpty() || redisTokenService.isTokenBlacklisted(jwt)) {
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    return;
+                }
+                User user = new User();
+                user.setEmail(identity.get().subject());
+                EdgeIdentityVerifier.EdgeIdentity edgeIdentity = identity.get();
+                List<GrantedAuthority> authorities = edgeIdentity.permissionBits() != null
+                        ? permissionCatalog.authoritiesFor(edgeIdentity.roles(), edgeIdentity.permissionBits())
+                        : buildAuthorities(edgeIdentity.roles(), edgeIdentity.permissions());
+                UsernamePasswordAuthenticationToken authToken =
+                        new UsernamePasswordAuthenticationToken(user, null, authorities);
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+                filterChain.doFilter(request, response);
+                return;
+            }
         }
         if (!jwtService.isValidSignature(jwt)) {
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             return;
         }
-        Map<Object, Object> tokenData = redisTokenService.getTokenDataFromRedis(jwt);
-        if (tokenData != null) {
-            String userEmail = (String) tokenData.get("username");
-            String roles = (String) tokenData.get("roles");
-            String permissions = (String) tokenData.get("permissions");
-
-            UserDetails userDetails = constructUserDetailsFromRedisData(userEmail, roles, permissions);
-            UsernamePasswordAuthenticationToken authToken = createAuthenticationToken(userDetails, roles, permissions);
+        RedisTokenService.TokenPrincipal principal = principalCache.get(jwt);
+        boolean redisAvailable = true;
+        if (principal == null) {
+            try {
+                principal = redisTokenService.resolvePrincipal(jwt, jwtService.extractUsername(jwt));
+                if (principal != null) {
+                    principalCache.put(jwt, principal, jwtService.extractExpiration(jwt));
+                }
+            } catch (RedisDownException ex) {
+                log.warn("Falling back to database token validation: {}", ex.getMessage());
+                redisAvailable = false;
+            }
+        }
+        if (redisAvailable) {
+            if (principal == null) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
+            UserDetails userDetails = constructUserDetailsFromRedisData(principal);
+            List<GrantedAuthority> authorities = principal.permissionBits() != null
+                    ? permissionCatalog.authoritiesFor(split(principal.roles()), principal.permissionBits())
+                    : buildAuthorities(split(principal.roles()), split(principal.permissions()));
+            UsernamePasswordAuthenticationToken authToken =
+                    new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
             authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(authToken);
             filterChain.doFilter(request, response);
@@ -81,9 +119,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String userEmail = jwtService.extractUsername(jwt);
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-            var isTokenValid = tokenRepository.findByToken(jwt)
+            var isTokenValid = tokenRepository.findByTokenDigest(TokenDigest.sha256(jwt))
                     .map(t -> !t.isExpired() && !t.isRevoked())
-                    .orElse(false);
+                    .orElseGet(() -> tokenAuditWriter.isPending(jwt));
             if (jwtService.isTokenValid(jwt, userDetails) && isTokenValid) {
                 List<GrantedAuthority> authorities = extractAuthoritiesFromJWT(jwt);
                 UsernamePasswordAuthenticationToken authToken =
@@ -94,66 +132,34 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                         );
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
-                redisTokenService.saveUserToRedis(userDetails);
             }
         }
         filterChain.doFilter(request, response);
     }
 
     private List<GrantedAuthority> extractAuthoritiesFromJWT(String jwt) {
-        List<String> roles = jwtService.extractRoles(jwt);
-        List<GrantedAuthority> authorities = new ArrayList<>(roles.stream().map(SimpleGrantedAuthority::new).toList());
-        if (roles.contains("ROLE_SUPER-ADMIN")) {
-            List<String> allPermissions = permissionRepository.findAll()
-                    .stream()
-                    .map(PermissionEntity::getName)
-                    .toList();
-            authorities.addAll(allPermissions.stream().map(SimpleGrantedAuthority::new).toList());
-        } else {
-            List<String> permissions = jwtService.extractPermissions(jwt);
-            authorities.addAll(permissions.stream().map(SimpleGrantedAuthority::new).toList());
+        return buildAuthorities(jwtService.extractRoles(jwt), jwtService.extractPermissions(jwt));
+    }
+
+    private List<GrantedAuthority> buildAuthorities(List<String> roles, List<String> permissions) {
+        if (roles.contains(PermissionCatalog.SUPER_ADMIN_ROLE)) {
+            return permissionCatalog.getSuperAdminAuthorities();
         }
+        List<GrantedAuthority> authorities = new ArrayList<>(roles.size() + permissions.size());
+        roles.forEach(role -> authorities.add(permissionCatalog.intern(role)));
+        permissions.forEach(permission -> authorities.add(permissionCatalog.intern(permission)));
         return authorities;
     }
 
-    private UsernamePasswordAuthenticationToken createAuthenticationToken(UserDetails userDetails, String roles, String permissions) {
-        List<GrantedAuthority> authorities = new ArrayList<>();
-        if (roles != null && !roles.isEmpty()) {
-            authorities.addAll(Arrays.stream(roles.split(","))
-                    .map(SimpleGrantedAuthority::new)
-                    .toList());
-        }
-        if (roles != null && roles.contains("ROLE_SUPER-ADMIN")) {
-            List<String> allPermissions = permissionRepository.findAll().stream().map(PermissionEntity::getName).toList();
-            authorities.addAll(allPermissions.stream().map(SimpleGrantedAuthority::new).toList());
-        } else if (permissions != null && !permissions.isEmpty()) {
-            authorities.addAll(Arrays.stream(permissions.split(","))
-                    .map(SimpleGrantedAuthority::new)
-                    .toList());
-        }
-        return new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
+    private static List<String> split(String values) {
+        return values == null || values.isEmpty() ? Collections.emptyList() : Arrays.asList(values.split(","));
     }
 
-    private UserDetails constructUserDetailsFromRedisData(String email, String roles, String permissions) {
-        List<GrantedAuthority> grantedAuthorities = new ArrayList<>();
-        if (roles != null && !roles.isEmpty()) {
-            grantedAuthorities.addAll(Arrays.stream(roles.split(","))
-                    .map(SimpleGrantedAuthority::new)
-                    .toList());
-        }
-        if (permissions != null && !permissions.isEmpty()) {
-            grantedAuthorities.addAll(Arrays.stream(permissions.split(","))
-                    .map(SimpleGrantedAuthority::new)
-                    .toList());
-        }
-        String firstname = (String) redisTemplate.opsForHash().get("user::" + email, "firstname");
-        String lastname = (String) redisTemplate.opsForHash().get("user::" + email, "lastname");
-        String password = (String) redisTemplate.opsForHash().get("user::" + email, "password");
+    private UserDetails constructUserDetailsFromRedisData(RedisTokenService.TokenPrincipal principal) {
         User user = new User();
-        user.setEmail(email);
-        user.setFirstname(firstname);
-        user.setLastname(lastname);
-        user.setPassword(password);
+        user.setEmail(principal.username());
+        user.setFirstname(principal.firstname());
+        user.setLastname(principal.lastname());
         return user;
     }
-}
\ No newline at end of file
+}
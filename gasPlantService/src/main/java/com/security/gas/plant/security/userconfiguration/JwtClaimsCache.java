@@ -0,0 +1,64 @@
+package com.security.gas.plant.security.userconfiguration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.security.gas.plant.security.usertoken.TokenDigest;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+@Component
+public class JwtClaimsCache {
+
+    private final Cache<String, Claims> cache;
+
+    public JwtClaimsCache(
+            @Value("${application.security.jwt.claims-cache.maximum-size:10000}") long maximumSize,
+            MeterRegistry meterRegistry
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ClaimsExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.claims");
+    }
+
+    public Claims get(String token, Function<String, Claims> verifier) {
+        return cache.get(TokenDigest.of(token), digest -> verifier.apply(token));
+    }
+
+    public void evict(String token) {
+        cache.invalidate(TokenDigest.of(token));
+    }
+
+    private static final class ClaimsExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return 0;
+            }
+            long remainingMillis = expiration.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
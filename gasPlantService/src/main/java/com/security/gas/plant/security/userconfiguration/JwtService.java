@@ -1,7 +1,10 @@
 package com.security.gas.plant.security.userconfiguration;
 
+import com.security.gas.plant.entity.User;
+import com.security.gas.plant.service.PermissionCatalog;
 import com.security.gas.plant.service.RedisTokenService;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -9,16 +12,13 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.security.KeyFactory;
-import java.security.PrivateKey;
-import java.security.PublicKey;
-import java.security.spec.PKCS8EncodedKeySpec;
-import java.security.spec.X509EncodedKeySpec;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -27,49 +27,25 @@ import java.util.stream.Collectors;
 @Slf4j
 public class JwtService {
 
+    private static final String REFRESH_FAMILY_CLAIM = "fam";
+    private static final String REFRESH_GENERATION_CLAIM = "gen";
+    private static final String REFRESH_USER_ID_CLAIM = "uid";
+
     @Value("${application.security.jwt.expiration}")
     private long jwtExpiration;
 
     @Value("${application.security.jwt.refresh-token.expiration}")
     private long refreshExpiration;
 
-    @Value("${application.security.jwt.private-key}")
-    private String privateKeyString;
-
-    @Value("${application.security.jwt.public-key}")
-    private String publicKeyString;
-
     private final RedisTokenService redisTokenService;
     private final RedisTemplate redisTemplate;
-
-    private PrivateKey getSignInKey() {
-        try {
-            byte[] keyBytes = Base64.getDecoder().decode(privateKeyString);
-            PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(keyBytes);
-            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
-            return keyFactory.generatePrivate(spec);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to get the private key", e);
-        }
-    }
-
-    private PublicKey getVerificationKey() {
-        try {
-            byte[] keyBytes = Base64.getDecoder().decode(publicKeyString);
-            X509EncodedKeySpec spec = new X509EncodedKeySpec(keyBytes);
-            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
-            return keyFactory.generatePublic(spec);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to get the public key", e);
-        }
-    }
+    private final JwtClaimsCache claimsCache;
+    private final JwtKeyRing keyRing;
+    private final PermissionCatalog permissionCatalog;
 
     public boolean isValidSignature(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getVerificationKey())
-                    .build()
-                    .parseClaimsJws(token);
+            extractAllClaims(token);
             return true;
         } catch (JwtException e) {
             log.error("JWT signature validation failed: {}", e.getMessage());
@@ -102,22 +78,34 @@ public class JwtService {
                     .filter(grantedAuthority -> !grantedAuthority.getAuthority().startsWith("ROLE_"))
                     .map(GrantedAuthority::getAuthority)
                     .collect(Collectors.toList());
-            roles.forEach(role -> {
-                System.out.println("Role: " + role);
-            });
-            permissions.forEach(permission -> {
-                System.out.println("Permission: " + permission);
-            });
             claims.put("roles", roles);
-            claims.put("permissions", permissions);
+            claims.put("pbits", permissionCatalog.encode(permissions));
         }
-        String existingToken = redisTokenService.getTokenForUser(userDetails.getUsername());
-        if (existingToken != null) {
-            log.info("Existing token found for user {}. Invalidating it.", userDetails.getUsername());
-            redisTokenService.invalidateToken(existingToken);
+        return issueAccessToken(claims, userDetails.getUsername(),
+                token -> redisTokenService.saveTokenToRedis(token, userDetails, jwtExpiration));
+    }
+
+    public String generateToken(RedisTokenService.TokenPrincipal principal) {
+        Map<String, Object> claims = new HashMap<>();
+        List<String> roles = principal.roles() == null || principal.roles().isEmpty()
+                ? Collections.emptyList()
+                : Arrays.asList(principal.roles().split(","));
+        if (roles.contains(PermissionCatalog.SUPER_ADMIN_ROLE)) {
+            claims.put("roles", Collections.singletonList(PermissionCatalog.SUPER_ADMIN_ROLE));
+        } else {
+            claims.put("roles", roles);
+            claims.put("pbits", principal.permissionBits());
         }
-        String token = buildToken(claims, userDetails, jwtExpiration);
-        redisTokenService.saveTokenToRedis(token, userDetails, jwtExpiration);
+        return issueAccessToken(claims, principal.username(),
+                token -> redisTokenService.saveTokenToRedis(token, principal, jwtExpiration));
+    }
+
+    private String issueAccessToken(Map<String, Object> claims, String username, Consumer<String> store) {
+        if (redisTokenService.invalidateSession(username)) {
+            log.info("Existing token found for user {}. Invalidated it.", username);
+        }
+        String token = buildToken(claims, username, jwtExpiration);
+        store.accept(token);
         return token;
     }
 
@@ -128,6 +116,10 @@ public class JwtService {
 
     public List<String> extractPermissions(String token) {
         final Claims claims = extractAllClaims(token);
+        String permissionBits = claims.get("pbits", String.class);
+        if (permissionBits != null) {
+            return permissionCatalog.decodeNames(permissionBits);
+        }
         return claims.get("permissions", List.class) == null ? Collections.emptyList() : claims.get("permissions", List.class);
     }
 
@@ -137,27 +129,87 @@ public class JwtService {
             Map<String, Object> extraClaims,
             UserDetails userDetails
     ) {
-        return buildToken(extraClaims, userDetails, jwtExpiration);
+        return buildToken(extraClaims, userDetails.getUsername(), jwtExpiration);
     }
 
     public String generateRefreshToken(
             UserDetails userDetails
     ) {
-        return buildToken(new HashMap<>(), userDetails, refreshExpiration);
+        String familyId = UUID.randomUUID().toString();
+        Integer userId = userDetails instanceof User user ? user.getId() : null;
+        redisTokenService.startRefreshFamily(familyId, userDetails.getUsername(), refreshExpiration);
+        return buildRefreshToken(userDetails.getUsername(), userId, familyId, 0);
+    }
+
+    public Claims extractRefreshClaims(String refreshToken) {
+        Claims claims = extractAllClaims(refreshToken);
+        if (claims.containsKey("roles")) {
+            throw new BadCredentialsException("Access tokens cannot be used to refresh");
+        }
+        return claims;
+    }
+
+    public boolean isRotatingRefreshToken(Claims refreshClaims) {
+        return refreshClaims.get(REFRESH_FAMILY_CLAIM) != null;
+    }
+
+    public Integer extractRefreshUserId(Claims refreshClaims) {
+        Number userId = refreshClaims.get(REFRESH_USER_ID_CLAIM, Number.class);
+        return userId == null ? null : userId.intValue();
+    }
+
+    public void verifyRefreshGeneration(Claims refreshClaims) {
+        String familyId = refreshClaims.get(REFRESH_FAMILY_CLAIM, String.class);
+        Number generation = refreshClaims.get(REFRESH_GENERATION_CLAIM, Number.class);
+        long current = redisTokenService.currentRefreshGeneration(familyId);
+        if (current == RedisTokenService.REFRESH_FAMILY_UNKNOWN) {
+            throw new BadCredentialsException("Refresh token is no longer valid");
+        }
+        if (generation == null || generation.longValue() != current) {
+            rotateRefreshToken(refreshClaims);
+        }
+    }
+
+    public String rotateRefreshToken(Claims refreshClaims) {
+        String familyId = refreshClaims.get(REFRESH_FAMILY_CLAIM, String.class);
+        Number generation = refreshClaims.get(REFRESH_GENERATION_CLAIM, Number.class);
+        long next = redisTokenService.rotateRefreshFamily(
+                familyId, generation == null ? -1 : generation.longValue(), refreshExpiration);
+        if (next == RedisTokenService.REFRESH_TOKEN_REUSED) {
+            log.warn("Refresh token reuse detected for user {}, revoking family {}", refreshClaims.getSubject(), familyId);
+            redisTokenService.invalidateSession(refreshClaims.getSubject());
+            throw new BadCredentialsException("Refresh token has already been used");
+        }
+        if (next < 0) {
+            throw new BadCredentialsException("Refresh token is no longer valid");
+        }
+        return buildRefreshToken(refreshClaims.getSubject(), extractRefreshUserId(refreshClaims), familyId, next);
+    }
+
+    private String buildRefreshToken(String username, Integer userId, String familyId, long generation) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(REFRESH_FAMILY_CLAIM, familyId);
+        claims.put(REFRESH_GENERATION_CLAIM, generation);
+        if (userId != null) {
+            claims.put(REFRESH_USER_ID_CLAIM, userId);
+        }
+        return buildToken(claims, username, refreshExpiration);
     }
 
     private String buildToken(
             Map<String, Object> extraClaims,
-            UserDetails userDetails,
+            String subject,
             long expiration
     ) {
+        JwtKeyRing.SigningKey signingKey = keyRing.currentSigningKey();
         return Jwts
                 .builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.keyId())
                 .setClaims(extraClaims)
-                .setSubject(userDetails.getUsername())
+                .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.RS256)
+                .signWith(signingKey.privateKey(), SignatureAlgorithm.RS256)
                 .compact();
     }
 
@@ -179,10 +231,11 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
+        return claimsCache.get(token, this::parseClaims);
+    }
+
+    private Claims parseClaims(String token) {
+        return keyRing.parser()
                 .parseClaimsJws(token)
                 .getBody();
     }
@@ -1,5 +1,7 @@
 package com.security.gas.plant.security.userconfiguration;
 
+import com.security.gas.plant.security.usertoken.TokenAuditWriter;
+import com.security.gas.plant.security.usertoken.TokenDigest;
 import com.security.gas.plant.security.usertoken.TokenRepository;
 import com.security.gas.plant.service.RedisTokenService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,6 +20,8 @@ public class LogoutService implements LogoutHandler {
 
     private final RedisTokenService redisTokenService;
 
+    private final TokenAuditWriter tokenAuditWriter;
+
     @Override
     public void logout(
             HttpServletRequest request,
@@ -31,7 +35,11 @@ public class LogoutService implements LogoutHandler {
         }
         final String jwt = authHeader.substring(7);
         redisTokenService.invalidateToken(jwt);
-        var storedToken = tokenRepository.findByToken(jwt).orElse(null);
+        if (tokenAuditWriter.revokePending(jwt)) {
+            SecurityContextHolder.clearContext();
+            return;
+        }
+        var storedToken = tokenRepository.findByTokenDigest(TokenDigest.sha256(jwt)).orElse(null);
         if (storedToken != null) {
             storedToken.setExpired(true);
             storedToken.setRevoked(true);
@@ -0,0 +1,93 @@
+package com.security.gas.plant.security.userconfiguration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.security.gas.plant.security.usertoken.TokenDigest;
+import com.security.gas.plant.service.RedisTokenService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+public class PrincipalCache implements MessageListener {
+
+    private final boolean enabled;
+    private final long maxStalenessMillis;
+    private final Cache<String, Entry> cache;
+
+    public PrincipalCache(
+            @Value("${application.security.principal-cache.enabled:false}") boolean enabled,
+            @Value("${application.security.principal-cache.maximum-size:10000}") long maximumSize,
+            @Value("${application.security.principal-cache.max-staleness:30000}") long maxStalenessMillis,
+            RedisMessageListenerContainer listenerContainer,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new EntryExpiry())
+                .recordStats()
+                .build();
+        if (enabled) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(RedisTokenService.TOKEN_INVALIDATION_CHANNEL));
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.principals");
+        }
+    }
+
+    public RedisTokenService.TokenPrincipal get(String token) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = cache.getIfPresent(TokenDigest.of(token));
+        return entry == null ? null : entry.principal();
+    }
+
+    public void put(String token, RedisTokenService.TokenPrincipal principal, Date tokenExpiration) {
+        if (!enabled || tokenExpiration == null) {
+            return;
+        }
+        long expiresAt = Math.min(tokenExpiration.getTime(), System.currentTimeMillis() + maxStalenessMillis);
+        cache.put(TokenDigest.of(token), new Entry(principal, expiresAt));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String digest = new String(message.getBody(), StandardCharsets.US_ASCII);
+        cache.invalidate(digest);
+        log.debug("Evicted cached principal for token digest {}", digest);
+    }
+
+    private record Entry(RedisTokenService.TokenPrincipal principal, long expiresAt) {
+    }
+
+    private static final class EntryExpiry implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entry.expiresAt() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
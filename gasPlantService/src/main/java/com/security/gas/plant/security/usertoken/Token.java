@@ -7,11 +7,17 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_token_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_token_revoked_created_at", columnList = "revoked, created_at")
+})
 public class Token {
 
     @Id
@@ -21,6 +27,9 @@ public class Token {
     @Column(unique = true, length = 700)
     public String token;
 
+    @Column(name = "token_digest", unique = true, columnDefinition = "BINARY(32)")
+    public byte[] tokenDigest;
+
 
     @Enumerated(EnumType.STRING)
     public TokenType tokenType = TokenType.BEARER;
@@ -29,6 +38,10 @@ public class Token {
 
     public boolean expired;
 
+    public Instant createdAt;
+
+    public Instant expiresAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     public User user;
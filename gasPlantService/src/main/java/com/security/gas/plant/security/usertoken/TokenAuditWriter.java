@@ -0,0 +1,217 @@
+package com.security.gas.plant.security.usertoken;
+
+import com.security.gas.plant.entity.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Component
+public class TokenAuditWriter {
+
+    private final TokenRepository tokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long jwtExpiration;
+    private final boolean writeBehind;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final BlockingQueue<PendingToken> queue;
+    private final Map<String, Boolean> pendingRevoked = new ConcurrentHashMap<>();
+    private List<PendingToken> retryBatch;
+    private int retryAttempts;
+    private long retryNotBefore;
+    private final Counter flushed;
+    private final Counter overflowed;
+    private final Counter failed;
+    private final Counter retried;
+    private final Timer flushTimer;
+
+    public TokenAuditWriter(
+            TokenRepository tokenRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${application.security.jwt.expiration}") long jwtExpiration,
+            @Value("${application.security.token-audit.write-behind.enabled:false}") boolean writeBehind,
+            @Value("${application.security.token-audit.write-behind.queue-capacity:10000}") int queueCapacity,
+            @Value("${application.security.token-audit.write-behind.batch-size:200}") int batchSize,
+            @Value("${application.security.token-audit.write-behind.max-attempts:5}") int maxAttempts,
+            @Value("${application.security.token-audit.write-behind.retry-backoff:1000}") long retryBackoffMillis
+    ) {
+        this.tokenRepository = tokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jwtExpiration = jwtExpiration;
+        this.writeBehind = writeBehind;
+        this.batchSize = batchSize;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.flushed = meterRegistry.counter("token.audit.flushed");
+        this.overflowed = meterRegistry.counter("token.audit.overflow");
+        this.failed = meterRegistry.counter("token.audit.failed");
+        this.retried = meterRegistry.counter("token.audit.retried");
+        this.flushTimer = meterRegistry.timer("token.audit.flush");
+        meterRegistry.gauge("token.audit.queue.size", queue, Collection::size);
+    }
+
+    public void recordIssued(User user, String jwtToken, boolean revokePrevious) {
+        PendingToken pending = new PendingToken(user, jwtToken, revokePrevious, Instant.now());
+        if (!writeBehind) {
+            persist(List.of(pending));
+            return;
+        }
+        String digest = TokenDigest.of(jwtToken);
+        pendingRevoked.put(digest, false);
+        if (!queue.offer(pending)) {
+            pendingRevoked.remove(digest);
+            overflowed.increment();
+            log.warn("Token audit queue is full, writing token row for user {} synchronously", user.getId());
+            persist(List.of(pending));
+        }
+    }
+
+    public boolean isPending(String jwtToken) {
+        return writeBehind && Boolean.FALSE.equals(pendingRevoked.get(TokenDigest.of(jwtToken)));
+    }
+
+    public boolean revokePending(String jwtToken) {
+        return writeBehind && pendingRevoked.computeIfPresent(TokenDigest.of(jwtToken), (digest, revoked) -> true) != null;
+    }
+
+    public void revokeIssued(String jwtToken) {
+        if (revokePending(jwtToken)) {
+            return;
+        }
+        tokenRepository.findByTokenDigest(TokenDigest.sha256(jwtToken)).ifPresent(token -> {
+            token.setExpired(true);
+            token.setRevoked(true);
+            tokenRepository.save(token);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${application.security.token-audit.write-behind.flush-interval:500}")
+    public void flush() {
+        if (!writeBehind) {
+            return;
+        }
+        drain();
+    }
+
+    @PreDestroy
+    public synchronized void flushOnShutdown() {
+        if (!queue.isEmpty() || retryBatch != null) {
+            log.info("Flushing {} pending token audit rows before shutdown", queue.size());
+            retryNotBefore = 0;
+            drain();
+        }
+    }
+
+    private synchronized void drain() {
+        if (retryBatch != null) {
+            if (System.currentTimeMillis() < retryNotBefore) {
+                return;
+            }
+            retried.increment(retryBatch.size());
+            if (!write(retryBatch, retryAttempts)) {
+                return;
+            }
+            retryBatch = null;
+        }
+        List<PendingToken> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            if (!write(batch, 0)) {
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    private boolean write(List<PendingToken> batch, int previousAttempts) {
+        try {
+            Set<String> revokedOnWrite = flushTimer.record(() -> persist(batch));
+            flushed.increment(batch.size());
+            settle(batch, revokedOnWrite);
+            return true;
+        } catch (RuntimeException ex) {
+            int attempts = previousAttempts + 1;
+            if (attempts >= maxAttempts) {
+                failed.increment(batch.size());
+                log.error("Dropping {} token audit rows after {} attempts: {}", batch.size(), attempts, ex.getMessage());
+                settle(batch, null);
+                retryBatch = null;
+                return true;
+            }
+            log.warn("Failed to persist {} token audit rows (attempt {}), retrying: {}", batch.size(), attempts, ex.getMessage());
+            retryBatch = new ArrayList<>(batch);
+            retryAttempts = attempts;
+            retryNotBefore = System.currentTimeMillis() + (retryBackoffMillis << (attempts - 1));
+            return false;
+        }
+    }
+
+    private void settle(List<PendingToken> batch, Set<String> revokedOnWrite) {
+        for (PendingToken pending : batch) {
+            String digest = TokenDigest.of(pending.token());
+            Boolean revoked = pendingRevoked.remove(digest);
+            if (revokedOnWrite != null && Boolean.TRUE.equals(revoked) && !revokedOnWrite.contains(digest)) {
+                tokenRepository.findByTokenDigest(TokenDigest.sha256(pending.token())).ifPresent(token -> {
+                    token.setExpired(true);
+                    token.setRevoked(true);
+                    tokenRepository.save(token);
+                });
+            }
+        }
+    }
+
+    private Set<String> persist(List<PendingToken> batch) {
+        return transactionTemplate.execute(status -> {
+            Map<Integer, Integer> latestByUser = new HashMap<>();
+            for (int i = 0; i < batch.size(); i++) {
+                latestByUser.put(batch.get(i).user().getId(), i);
+            }
+            Set<Integer> revokedUsers = new HashSet<>();
+            for (PendingToken pending : batch) {
+                if (pending.revokePrevious() && revokedUsers.add(pending.user().getId())) {
+                    tokenRepository.revokeAllValidTokensByUser(pending.user().getId());
+                }
+            }
+            List<Token> tokens = new ArrayList<>(batch.size());
+            Set<String> loggedOut = new HashSet<>();
+            for (int i = 0; i < batch.size(); i++) {
+                PendingToken pending = batch.get(i);
+                String digest = TokenDigest.of(pending.token());
+                if (Boolean.TRUE.equals(pendingRevoked.get(digest))) {
+                    loggedOut.add(digest);
+                }
+                boolean invalid = latestByUser.get(pending.user().getId()) != i || loggedOut.contains(digest);
+                tokens.add(Token.builder()
+                        .user(pending.user())
+                        .tokenDigest(TokenDigest.sha256(pending.token()))
+                        .tokenType(TokenType.BEARER)
+                        .expired(invalid)
+                        .revoked(invalid)
+                        .createdAt(pending.issuedAt())
+                        .expiresAt(pending.issuedAt().plusMillis(jwtExpiration))
+                        .build());
+            }
+            tokenRepository.saveAll(tokens);
+            return loggedOut;
+        });
+    }
+
+    private record PendingToken(User user, String token, boolean revokePrevious, Instant issuedAt) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.security.gas.plant.security.usertoken;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Slf4j
+@Component
+public class TokenDigestBackfill {
+
+    private final TokenRepository tokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public TokenDigestBackfill(
+            TokenRepository tokenRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${application.security.token-digest-backfill.enabled:true}") boolean enabled,
+            @Value("${application.security.token-digest-backfill.batch-size:1000}") int batchSize
+    ) {
+        this.tokenRepository = tokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!enabled) {
+            return;
+        }
+        long total = 0;
+        try {
+            int updated;
+            do {
+                Integer result = transactionTemplate.execute(status -> tokenRepository.backfillTokenDigests(batchSize));
+                updated = result == null ? 0 : result;
+                total += updated;
+            } while (updated == batchSize);
+        } catch (RuntimeException ex) {
+            log.error("Token digest backfill stopped after {} rows: {}", total, ex.getMessage());
+            return;
+        }
+        if (total > 0) {
+            log.info("Backfilled token digests for {} legacy token rows", total);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.security.gas.plant.security.usertoken;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+@Slf4j
+@Component
+public class TokenPurger {
+
+    private final TokenRepository tokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration retention;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Counter deleted;
+    private final Timer runTimer;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public TokenPurger(
+            TokenRepository tokenRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${application.security.token-purge.enabled:true}") boolean enabled,
+            @Value("${application.security.token-purge.retention:604800000}") long retentionMillis,
+            @Value("${application.security.token-purge.batch-size:1000}") int batchSize,
+            @Value("${application.security.token-purge.max-batches-per-run:100}") int maxBatchesPerRun
+    ) {
+        this.tokenRepository = tokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.retention = Duration.ofMillis(retentionMillis);
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.deleted = meterRegistry.counter("token.purge.deleted");
+        this.runTimer = meterRegistry.timer("token.purge.run");
+        meterRegistry.gauge("token.purge.lag.seconds", lagSeconds);
+    }
+
+    @Scheduled(
+            initialDelayString = "${application.security.token-purge.interval:300000}",
+            fixedDelayString = "${application.security.token-purge.interval:300000}"
+    )
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        runTimer.record(this::purgeBatches);
+    }
+
+    private void purgeBatches() {
+        Instant now = Instant.now();
+        Instant cutoff = now.minus(retention);
+        long total = 0;
+        try {
+            total += inBatches(() -> tokenRepository.deleteExpiredBefore(cutoff, batchSize));
+            total += inBatches(() -> tokenRepository.deleteRevokedCreatedBefore(cutoff, batchSize));
+            deleted.increment(total);
+            inBatches(() -> tokenRepository.stampRevokedWithoutCreatedAt(now, batchSize));
+            lagSeconds.set(tokenRepository.findOldestExpiredBefore(cutoff)
+                    .map(oldest -> Duration.between(oldest, cutoff).toSeconds())
+                    .orElse(0L));
+        } catch (RuntimeException ex) {
+            log.error("Token purge failed after deleting {} rows: {}", total, ex.getMessage());
+            return;
+        }
+        if (total > 0) {
+            log.info("Purged {} expired or revoked tokens older than {}", total, cutoff);
+        }
+    }
+
+    private long inBatches(IntSupplier statement) {
+        long total = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            Integer affected = transactionTemplate.execute(status -> statement.getAsInt());
+            int count = affected == null ? 0 : affected;
+            total += count;
+            if (count < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+}
@@ -1,19 +1,57 @@
 package com.security.gas.plant.security.usertoken;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
-import java.util.List;
+import java.time.Instant;
 import java.util.Optional;
 
 public interface TokenRepository extends JpaRepository<Token, Integer> {
 
+    @Modifying
     @Query(value = """
-      select t from Token t inner join User u\s
-      on t.user.id = u.id\s
-      where u.id = :id and (t.expired = false or t.revoked = false)\s
+      update Token t set t.expired = true, t.revoked = true\s
+      where t.user.id = :id and (t.expired = false or t.revoked = false)\s
       """)
-    List<Token> findAllValidTokenByUser(Integer id);
+    int revokeAllValidTokensByUser(Integer id);
 
-    Optional<Token> findByToken(String token);
-}
\ No newline at end of file
+    Optional<Token> findByTokenDigest(byte[] tokenDigest);
+
+    @Modifying
+    @Query(value = """
+      update token set token_digest = unhex(sha2(token, 256)), token = null\s
+      where token_digest is null and token is not null\s
+      limit :limit\s
+      """, nativeQuery = true)
+    int backfillTokenDigests(int limit);
+
+    @Modifying
+    @Query(value = """
+      delete from token\s
+      where expires_at < :cutoff\s
+      limit :limit\s
+      """, nativeQuery = true)
+    int deleteExpiredBefore(Instant cutoff, int limit);
+
+    @Modifying
+    @Query(value = """
+      delete from token\s
+      where revoked = true and created_at < :cutoff\s
+      limit :limit\s
+      """, nativeQuery = true)
+    int deleteRevokedCreatedBefore(Instant cutoff, int limit);
+
+    @Modifying
+    @Query(value = """
+      update token set created_at = :now\s
+      where revoked = true and created_at is null\s
+      limit :limit\s
+      """, nativeQuery = true)
+    int stampRevokedWithoutCreatedAt(Instant now, int limit);
+
+    @Query(value = """
+      select min(t.expiresAt) from Token t where t.expiresAt < :cutoff\s
+      """)
+    Optional<Instant> findOldestExpiredBefore(Instant cutoff);
+}
@@ -0,0 +1,204 @@
+package com.security.gas.plant.service;
+
+import com.security.gas.plant.entity.PermissionEntity;
+import com.security.gas.plant.repository.PermissionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Service
+public class PermissionCatalog implements MessageListener {
+
+    public static final String SUPER_ADMIN_ROLE = "ROLE_SUPER-ADMIN";
+    public static final String CATALOG_KEY = "permissions::catalog";
+    private static final String PERMISSIONS_CHANGED_CHANNEL = "permissions-changed";
+    private static final int MAX_MEMOIZED_AUTHORITY_SETS = 1024;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final PermissionRepository permissionRepository;
+    private final StringRedisTemplate redisTemplate;
+
+    private volatile Snapshot snapshot = Snapshot.empty();
+
+    public PermissionCatalog(
+            PermissionRepository permissionRepository,
+            StringRedisTemplate redisTemplate,
+            RedisMessageListenerContainer listenerContainer
+    ) {
+        this.permissionRepository = permissionRepository;
+        this.redisTemplate = redisTemplate;
+        listenerContainer.addMessageListener(this, new ChannelTopic(PERMISSIONS_CHANGED_CHANNEL));
+    }
+
+    public long getVersion() {
+        return snapshot.version();
+    }
+
+    public List<GrantedAuthority> getPermissionAuthorities() {
+        return snapshot.permissions();
+    }
+
+    public List<GrantedAuthority> getSuperAdminAuthorities() {
+        return snapshot.superAdminAuthorities();
+    }
+
+    public GrantedAuthority intern(String authority) {
+        GrantedAuthority interned = snapshot.byName().get(authority);
+        return interned != null ? interned : new SimpleGrantedAuthority(authority);
+    }
+
+    public String encode(Collection<String> permissionNames) {
+        BitSet bits = encode(snapshot, permissionNames);
+        if (bits == null) {
+            refresh();
+            bits = encode(snapshot, permissionNames);
+        }
+        if (bits == null) {
+            Map<String, Integer> idByName = snapshot.idByName();
+            List<String> missing = permissionNames.stream().filter(name -> !idByName.containsKey(name)).toList();
+            throw new IllegalStateException("Permissions " + missing + " are not in catalog version " + snapshot.version());
+        }
+        return ENCODER.encodeToString(bits.toByteArray());
+    }
+
+    private static BitSet encode(Snapshot current, Collection<String> permissionNames) {
+        BitSet bits = new BitSet();
+        for (String name : permissionNames) {
+            Integer id = current.idByName().get(name);
+            if (id == null) {
+                return null;
+            }
+            bits.set(id);
+        }
+        return bits;
+    }
+
+    public List<String> decodeNames(String permissionBits) {
+        return decode(permissionBits).stream().map(GrantedAuthority::getAuthority).toList();
+    }
+
+    public List<GrantedAuthority> authoritiesFor(List<String> roles, String permissionBits) {
+        if (roles.contains(SUPER_ADMIN_ROLE)) {
+            return getSuperAdminAuthorities();
+        }
+        Snapshot current = snapshot;
+        String memoKey = String.join(",", roles) + "|" + permissionBits;
+        List<GrantedAuthority> memoized = current.memoized().get(memoKey);
+        if (memoized != null) {
+            return memoized;
+        }
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        roles.forEach(role -> authorities.add(intern(role)));
+        authorities.addAll(decode(permissionBits));
+        List<GrantedAuthority> immutable = List.copyOf(authorities);
+        if (current.memoized().size() < MAX_MEMOIZED_AUTHORITY_SETS) {
+            current.memoized().put(memoKey, immutable);
+        }
+        return immutable;
+    }
+
+    private List<GrantedAuthority> decode(String permissionBits) {
+        if (permissionBits == null || permissionBits.isEmpty()) {
+            return List.of();
+        }
+        Snapshot current = snapshot;
+        BitSet bits = BitSet.valueOf(Base64.getUrlDecoder().decode(permissionBits));
+        List<GrantedAuthority> authorities = new ArrayList<>(bits.cardinality());
+        for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+            GrantedAuthority authority = id < current.byId().length ? current.byId()[id] : null;
+            if (authority != null) {
+                authorities.add(authority);
+            } else {
+                log.warn("Permission id {} is not in catalog version {}", id, current.version());
+            }
+        }
+        return authorities;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        refresh();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPermissionsChanged(PermissionsChangedEvent event) {
+        refresh();
+        redisTemplate.opsForValue().increment(RedisKeySchema.authorityEpochKey());
+        redisTemplate.convertAndSend(PERMISSIONS_CHANGED_CHANNEL, Long.toString(snapshot.version()));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        refresh();
+    }
+
+    public synchronized void refresh() {
+        List<PermissionEntity> entities = permissionRepository.findAll();
+        int maxId = entities.stream().mapToInt(permission -> permission.getId().intValue()).max().orElse(-1);
+        GrantedAuthority[] byId = new GrantedAuthority[maxId + 1];
+        Map<String, GrantedAuthority> byName = new HashMap<>();
+        Map<String, Integer> idByName = new HashMap<>();
+        Map<String, String> published = new HashMap<>();
+        List<GrantedAuthority> permissions = new ArrayList<>(entities.size());
+        for (PermissionEntity entity : entities) {
+            int id = entity.getId().intValue();
+            GrantedAuthority authority = new SimpleGrantedAuthority(entity.getName());
+            byId[id] = authority;
+            byName.put(entity.getName(), authority);
+            idByName.put(entity.getName(), id);
+            published.put(Integer.toString(id), entity.getName());
+            permissions.add(authority);
+        }
+        GrantedAuthority superAdmin = new SimpleGrantedAuthority(SUPER_ADMIN_ROLE);
+        byName.put(SUPER_ADMIN_ROLE, superAdmin);
+        List<GrantedAuthority> superAdminAuthorities = new ArrayList<>(permissions.size() + 1);
+        superAdminAuthorities.add(superAdmin);
+        superAdminAuthorities.addAll(permissions);
+        snapshot = new Snapshot(
+                snapshot.version() + 1,
+                List.copyOf(permissions),
+                List.copyOf(superAdminAuthorities),
+                byId,
+                Map.copyOf(byName),
+                Map.copyOf(idByName),
+                new ConcurrentHashMap<>()
+        );
+        if (!published.isEmpty()) {
+            redisTemplate.opsForHash().putAll(CATALOG_KEY, published);
+        }
+        log.info("Permission catalog refreshed to version {} with {} permissions", snapshot.version(), permissions.size());
+    }
+
+    public record PermissionsChangedEvent() {
+    }
+
+    private record Snapshot(
+            long version,
+            List<GrantedAuthority> permissions,
+            List<GrantedAuthority> superAdminAuthorities,
+            GrantedAuthority[] byId,
+            Map<String, GrantedAuthority> byName,
+            Map<String, Integer> idByName,
+            Map<String, List<GrantedAuthority>> memoized
+    ) {
+
+        static Snapshot empty() {
+            GrantedAuthority superAdmin = new SimpleGrantedAuthority(SUPER_ADMIN_ROLE);
+            return new Snapshot(0, List.of(), List.of(superAdmin), new GrantedAuthority[0],
+                    Map.of(SUPER_ADMIN_ROLE, superAdmin), Map.of(), new ConcurrentHashMap<>());
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.security.gas.plant.dtomapper.PermissionDtoMapper;
 import com.security.gas.plant.entity.PermissionEntity;
 import com.security.gas.plant.repository.PermissionRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -13,10 +14,12 @@ import org.springframework.stereotype.Service;
 public class PermissionService {
 
     private final PermissionRepository permissionRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public PermissionResponseDto createPermission(PermissionRequestDto permissionRequestDto) {
         PermissionEntity permission = new PermissionEntity(null, permissionRequestDto.getName());
         PermissionEntity savedPermission = permissionRepository.save(permission);
+        eventPublisher.publishEvent(new PermissionCatalog.PermissionsChangedEvent());
         return PermissionDtoMapper.toPermissionResponseDto(savedPermission);
     }
 
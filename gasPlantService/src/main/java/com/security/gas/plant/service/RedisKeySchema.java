@@ -0,0 +1,75 @@
+package com.security.gas.plant.service;
+
+import com.security.gas.plant.security.usertoken.TokenDigest;
+
+public final class RedisKeySchema {
+
+    public static final String VERSION = "2";
+
+    public static final String TOKEN_USERNAME = "u";
+    public static final String TOKEN_ROLES = "r";
+    public static final String TOKEN_PERMISSION_BITS = "p";
+
+    public static final String USER_FIRSTNAME = "f";
+    public static final String USER_LASTNAME = "l";
+    public static final String USER_ROLES = "r";
+    public static final String USER_PERMISSION_BITS = "p";
+    public static final String USER_AUTHORITY_EPOCH = "e";
+
+    private RedisKeySchema() {
+    }
+
+    public static String tokenKey(String token) {
+        return tokenKeyForDigest(TokenDigest.of(token));
+    }
+
+    public static String tokenKeyForDigest(String digest) {
+        return "t" + VERSION + ":" + digest;
+    }
+
+    public static String userKey(String username) {
+        return "u" + VERSION + ":" + username;
+    }
+
+    public static String sessionKey(String username) {
+        return "s" + VERSION + ":" + username;
+    }
+
+    public static String refreshFamilyKey(String familyId) {
+        return "rf" + VERSION + ":" + familyId;
+    }
+
+    public static String usedRefreshTokenKey(String digest) {
+        return "rl" + VERSION + ":" + digest;
+    }
+
+    public static String authorityEpochKey() {
+        return "ae" + VERSION;
+    }
+
+    public static String revocationStreamKey() {
+        return "rv" + VERSION + ":stream";
+    }
+
+    public static String revokedTokensKey() {
+        return "rv" + VERSION + ":set";
+    }
+
+    public static final class Legacy {
+
+        private Legacy() {
+        }
+
+        public static String tokenKey(String token) {
+            return "token::" + token;
+        }
+
+        public static String userKey(String username) {
+            return "user::" + username;
+        }
+
+        public static String sessionKey(String username) {
+            return "session::" + username;
+        }
+    }
+}
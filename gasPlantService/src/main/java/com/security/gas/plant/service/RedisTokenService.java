@@ -1,102 +1,375 @@
 package com.security.gas.plant.service;
 
 import com.security.gas.plant.entity.User;
+import com.security.gas.plant.exception.RedisDownException;
+import com.security.gas.plant.security.usertoken.TokenDigest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Objects;
+import java.util.StringJoiner;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 @Slf4j
 @RequiredArgsConstructor
 @Service
 public class RedisTokenService {
 
+    public static final String TOKEN_INVALIDATION_CHANNEL = "token-invalidation";
+    public static final long REFRESH_FAMILY_UNKNOWN = -2;
+    public static final long REFRESH_TOKEN_REUSED = -1;
+    private static final RedisScript<Long> DELETE_IF_EQUALS = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    private static final RedisScript<Long> START_REFRESH_FAMILY = new DefaultRedisScript<>("""
+            redis.call('HSET', KEYS[1], 'g', 0, 'u', ARGV[1])
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return 0
+            """, Long.class);
+
+    private static final RedisScript<Long> ROTATE_REFRESH_FAMILY = new DefaultRedisScript<>("""
+            local generation = redis.call('HGET', KEYS[1], 'g')
+            if not generation then
+                return -2
+            end
+            if generation ~= ARGV[1] then
+                redis.call('DEL', KEYS[1])
+                return -1
+            end
+            local next = redis.call('HINCRBY', KEYS[1], 'g', 1)
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return next
+            """, Long.class);
+
+    private static final RedisScript<Long> RECORD_REVOKED_DIGEST = new DefaultRedisScript<>("""
+            redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+            redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', ARGV[3])
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> APPEND_REVOCATION = new DefaultRedisScript<>("""
+            redis.call('XADD', KEYS[1], 'MAXLEN', '~', ARGV[3], '*', 'd', ARGV[1], 'e', ARGV[2])
+            return 1
+            """, Long.class);
+
+    private static final byte[] SAVE_HASH_SCRIPT = """
+            redis.call('HSET', KEYS[1], unpack(ARGV, 2))
+            if tonumber(ARGV[1]) > 0 then
+                redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            end
+            return 1
+            """.getBytes(StandardCharsets.UTF_8);
+
+    @Value("${application.security.redis.user-ttl:604800000}")
+    private long userTtl;
+
+    @Value("${application.security.redis.read-legacy:false}")
+    private boolean readLegacy;
+
+    @Value("${application.security.jwt.expiration}")
+    private long accessTokenTtl;
+
+    @Value("${application.security.redis.revocation-stream-length:100000}")
+    private long revocationStreamLength;
+
     private final StringRedisTemplate redisTemplate;
+    private final PermissionCatalog permissionCatalog;
 
     public void saveTokenToRedis(String token, UserDetails userDetails, long expiration) {
-        String key = "token::" + token;
+        AuthorityStrings authorities = authorityStrings(userDetails);
+        writeSession(token, userDetails.getUsername(), authorities, userHashWrite(userDetails, authorities), expiration);
+    }
+
+    public void saveTokenToRedis(String token, TokenPrincipal principal, long expiration) {
+        AuthorityStrings authorities = new AuthorityStrings(principal.roles(), principal.permissionBits());
+        writeSession(token, principal.username(), authorities, null, expiration);
+    }
+
+    private void writeSession(String token, String username, AuthorityStrings authorities, byte[][] userWrite, long expiration) {
+        String digest = TokenDigest.of(token);
+        byte[][] hashWrite = hashWriteArguments(RedisKeySchema.tokenKeyForDigest(digest), expiration,
+                RedisKeySchema.TOKEN_USERNAME, username,
+                RedisKeySchema.TOKEN_ROLES, authorities.roles(),
+                RedisKeySchema.TOKEN_PERMISSION_BITS, authorities.permissionBits());
+        byte[] sessionKey = bytes(RedisKeySchema.sessionKey(username));
+        byte[] sessionValue = bytes(digest);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.scriptingCommands().eval(SAVE_HASH_SCRIPT, ReturnType.INTEGER, 1, hashWrite);
+            if (userWrite != null) {
+                connection.scriptingCommands().eval(SAVE_HASH_SCRIPT, ReturnType.INTEGER, 1, userWrite);
+            }
+            connection.stringCommands().set(sessionKey, sessionValue, Expiration.milliseconds(expiration), RedisStringCommands.SetOption.upsert());
+            return null;
+        });
+    }
 
-        redisTemplate.opsForHash().put(key, "username", userDetails.getUsername());
+    public TokenPrincipal resolvePrincipal(String token, String username) {
+        List<Object> results = readPrincipal(
+                RedisKeySchema.tokenKey(token), RedisKeySchema.userKey(username),
+                RedisKeySchema.USER_FIRSTNAME, RedisKeySchema.USER_LASTNAME);
+        @SuppressWarnings("unchecked")
+        Map<String, String> tokenData = (Map<String, String>) results.get(0);
+        @SuppressWarnings("unchecked")
+        List<String> userData = (List<String>) results.get(1);
+        if (tokenData != null && !tokenData.isEmpty()) {
+            return new TokenPrincipal(
+                    tokenData.get(RedisKeySchema.TOKEN_USERNAME),
+                    tokenData.get(RedisKeySchema.TOKEN_ROLES),
+                    tokenData.get(RedisKeySchema.TOKEN_PERMISSION_BITS),
+                    null,
+                    userData == null ? null : userData.get(0),
+                    userData == null ? null : userData.get(1)
+            );
+        }
+        if (readLegacy) {
+            return resolveLegacyPrincipal(token, username);
+        }
+        log.info("Token is blacklisted: true");
+        return null;
+    }
 
-        String roles = userDetails.getAuthorities()
-                .stream()
-                .filter(grantedAuthority -> grantedAuthority.getAuthority().startsWith("ROLE_"))
-                .map(GrantedAuthority::getAuthority)
-                .collect(Collectors.joining(","));
-        redisTemplate.opsForHash().put(key, "roles", roles);
+    private TokenPrincipal resolveLegacyPrincipal(String token, String username) {
+        List<Object> results = readPrincipal(
+                RedisKeySchema.Legacy.tokenKey(token), RedisKeySchema.Legacy.userKey(username),
+                "firstname", "lastname");
+        @SuppressWarnings("unchecked")
+        Map<String, String> tokenData = (Map<String, String>) results.get(0);
+        if (tokenData == null || tokenData.isEmpty()) {
+            log.info("Token is blacklisted: true");
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        List<String> userData = (List<String>) results.get(1);
+        return new TokenPrincipal(
+                tokenData.get("username"),
+                tokenData.get("roles"),
+                tokenData.get("pbits"),
+                tokenData.get("permissions"),
+                userData == null ? null : userData.get(0),
+                userData == null ? null : userData.get(1)
+        );
+    }
 
-        String permissions = userDetails.getAuthorities()
-                .stream()
-                .filter(grantedAuthority -> !grantedAuthority.getAuthority().startsWith("ROLE_"))
-                .map(GrantedAuthority::getAuthority)
-                .collect(Collectors.joining(","));
-        redisTemplate.opsForHash().put(key, "permissions", permissions);
-        redisTemplate.expire(key, expiration, TimeUnit.MILLISECONDS);
+    private List<Object> readPrincipal(String tokenKey, String userKey, String firstnameField, String lastnameField) {
+        byte[] rawTokenKey = bytes(tokenKey);
+        byte[] rawUserKey = bytes(userKey);
+        byte[] rawFirstname = bytes(firstnameField);
+        byte[] rawLastname = bytes(lastnameField);
+        try {
+            return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.hashCommands().hGetAll(rawTokenKey);
+                connection.hashCommands().hMGet(rawUserKey, rawFirstname, rawLastname);
+                return null;
+            });
+        } catch (RedisConnectionFailureException ex) {
+            throw new RedisDownException("Redis is unavailable: " + ex.getMessage());
+        }
     }
 
-    public void saveUserToRedis(UserDetails userDetails) {
-        String key = "user::" + userDetails.getUsername();
+    public TokenPrincipal getCachedUser(String username) {
+        byte[] userKey = bytes(RedisKeySchema.userKey(username));
+        byte[][] fields = {
+                bytes(RedisKeySchema.USER_ROLES), bytes(RedisKeySchema.USER_PERMISSION_BITS),
+                bytes(RedisKeySchema.USER_FIRSTNAME), bytes(RedisKeySchema.USER_LASTNAME),
+                bytes(RedisKeySchema.USER_AUTHORITY_EPOCH)};
+        byte[] epochKey = bytes(RedisKeySchema.authorityEpochKey());
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.hashCommands().hMGet(userKey, fields);
+            connection.stringCommands().get(epochKey);
+            return null;
+        });
+        @SuppressWarnings("unchecked")
+        List<String> values = (List<String>) results.get(0);
+        String currentEpoch = Objects.toString(results.get(1), "0");
+        if (values == null || values.get(0) == null || !currentEpoch.equals(values.get(4))) {
+            return null;
+        }
+        return new TokenPrincipal(
+                username,
+                values.get(0),
+                values.get(1),
+                null,
+                values.get(2),
+                values.get(3)
+        );
+    }
 
-        redisTemplate.opsForHash().put(key, "email", userDetails.getUsername());
-        redisTemplate.opsForHash().put(key, "password", userDetails.getPassword());
-        redisTemplate.opsForHash().put(key, "firstname", ((User) userDetails).getFirstname());
-        redisTemplate.opsForHash().put(key, "lastname", ((User) userDetails).getLastname());
+    public void evictUser(String username) {
+        redisTemplate.delete(RedisKeySchema.userKey(username));
+    }
 
-        String roles = userDetails.getAuthorities()
-                .stream()
-                .filter(grantedAuthority -> grantedAuthority.getAuthority().startsWith("ROLE_"))
-                .map(GrantedAuthority::getAuthority)
-                .collect(Collectors.joining(","));
-        redisTemplate.opsForHash().put(key, "roles", roles);
+    public boolean markRefreshTokenUsed(String refreshToken, long remainingMillis) {
+        Boolean first = redisTemplate.opsForValue().setIfAbsent(
+                RedisKeySchema.usedRefreshTokenKey(TokenDigest.of(refreshToken)), "1",
+                Math.max(1, remainingMillis), TimeUnit.MILLISECONDS);
+        return Boolean.TRUE.equals(first);
+    }
 
-        String permissions = userDetails.getAuthorities()
-                .stream()
-                .filter(grantedAuthority -> !grantedAuthority.getAuthority().startsWith("ROLE_"))
-                .map(GrantedAuthority::getAuthority)
-                .collect(Collectors.joining(","));
-        redisTemplate.opsForHash().put(key, "permissions", permissions);
+    public void startRefreshFamily(String familyId, String username, long expiration) {
+        redisTemplate.execute(START_REFRESH_FAMILY, List.of(RedisKeySchema.refreshFamilyKey(familyId)),
+                username, Long.toString(expiration));
+    }
+
+    public long currentRefreshGeneration(String familyId) {
+        Object generation = redisTemplate.opsForHash().get(RedisKeySchema.refreshFamilyKey(familyId), "g");
+        return generation == null ? REFRESH_FAMILY_UNKNOWN : Long.parseLong(generation.toString());
+    }
+
+    public long rotateRefreshFamily(String familyId, long presentedGeneration, long expiration) {
+        Long result = redisTemplate.execute(ROTATE_REFRESH_FAMILY, List.of(RedisKeySchema.refreshFamilyKey(familyId)),
+                Long.toString(presentedGeneration), Long.toString(expiration));
+        return result == null ? REFRESH_FAMILY_UNKNOWN : result;
     }
 
     public Map<Object, Object> getUserDataFromRedis(String email) {
-        String key = "user::" + email;
-        return redisTemplate.opsForHash().entries(key);
+        return redisTemplate.opsForHash().entries(RedisKeySchema.userKey(email));
     }
 
     public Map<Object, Object> getTokenDataFromRedis(String token) {
-        String key = "token::" + token;
-        return redisTemplate.opsForHash().entries(key);
+        return redisTemplate.opsForHash().entries(RedisKeySchema.tokenKey(token));
     }
 
     public boolean isTokenBlacklisted(String token) {
-        String key = "token::" + token;
-        boolean isBlacklisted = !redisTemplate.hasKey(key);
+        boolean isBlacklisted = !redisTemplate.hasKey(RedisKeySchema.tokenKey(token));
+        if (isBlacklisted && readLegacy) {
+            isBlacklisted = !redisTemplate.hasKey(RedisKeySchema.Legacy.tokenKey(token));
+        }
         log.info("Token is blacklisted: {}", isBlacklisted);
         return isBlacklisted;
     }
 
     public void invalidateToken(String token) {
-        String key = "token::" + token;
+        String digest = TokenDigest.of(token);
+        String key = RedisKeySchema.tokenKeyForDigest(digest);
+        Object username = redisTemplate.opsForHash().get(key, RedisKeySchema.TOKEN_USERNAME);
+        Long remaining = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
         redisTemplate.delete(key);
-        log.info("Token invalidated: {}", token);
+        if (username != null) {
+            redisTemplate.execute(DELETE_IF_EQUALS, List.of(RedisKeySchema.sessionKey(username.toString())), digest);
+        }
+        if (readLegacy) {
+            invalidateLegacyToken(token);
+        }
+        announceRevocation(digest, remaining);
+        log.info("Token invalidated: {}", digest);
     }
 
-    public String getTokenForUser(String username) {
-        Set<String> keys = redisTemplate.keys("token::*");
-        for (String key : keys) {
-            String storedUsername = (String) redisTemplate.opsForHash().get(key, "username");
-            if (username.equals(storedUsername)) {
-                log.info("Fetched token from Redis for username: {}", username);
-                return key.replace("token::", "");
+    public boolean invalidateSession(String username) {
+        boolean invalidated = false;
+        String digest = redisTemplate.opsForValue().get(RedisKeySchema.sessionKey(username));
+        if (digest != null) {
+            String key = RedisKeySchema.tokenKeyForDigest(digest);
+            Long remaining = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+            redisTemplate.delete(key);
+            redisTemplate.execute(DELETE_IF_EQUALS, List.of(RedisKeySchema.sessionKey(username)), digest);
+            announceRevocation(digest, remaining);
+            invalidated = true;
+        }
+        if (readLegacy) {
+            String legacyToken = redisTemplate.opsForValue().get(RedisKeySchema.Legacy.sessionKey(username));
+            if (legacyToken != null) {
+                invalidateLegacyToken(legacyToken);
+                announceRevocation(TokenDigest.of(legacyToken), null);
+                invalidated = true;
             }
         }
-        log.warn("No token found in Redis for username: {}", username);
-        return null;
+        if (!invalidated) {
+            log.warn("No session found in Redis for username: {}", username);
+        }
+        return invalidated;
+    }
+
+    private void announceRevocation(String digest, Long remainingMillis) {
+        long now = System.currentTimeMillis();
+        long ttl = remainingMillis == null || remainingMillis <= 0 ? accessTokenTtl : remainingMillis;
+        String expiresAt = Long.toString(now + ttl);
+        try {
+            redisTemplate.execute(RECORD_REVOKED_DIGEST, List.of(RedisKeySchema.revokedTokensKey()),
+                    digest, expiresAt, Long.toString(now));
+            redisTemplate.execute(APPEND_REVOCATION, List.of(RedisKeySchema.revocationStreamKey()),
+                    digest, expiresAt, Long.toString(revocationStreamLength));
+            redisTemplate.convertAndSend(TOKEN_INVALIDATION_CHANNEL, digest);
+        } catch (DataAccessException ex) {
+            log.warn("Could not announce revocation of {} to the gateway: {}", digest, ex.getMessage());
+        }
+    }
+
+    private void invalidateLegacyToken(String token) {
+        String key = RedisKeySchema.Legacy.tokenKey(token);
+        Object username = redisTemplate.opsForHash().get(key, "username");
+        redisTemplate.delete(key);
+        if (username != null) {
+            redisTemplate.execute(DELETE_IF_EQUALS, List.of(RedisKeySchema.Legacy.sessionKey(username.toString())), token);
+        }
+    }
+
+    private byte[][] userHashWrite(UserDetails userDetails, AuthorityStrings authorities) {
+        User user = userDetails instanceof User ? (User) userDetails : new User();
+        String epoch = redisTemplate.opsForValue().get(RedisKeySchema.authorityEpochKey());
+        return hashWriteArguments(RedisKeySchema.userKey(userDetails.getUsername()), userTtl,
+                RedisKeySchema.USER_FIRSTNAME, user.getFirstname(),
+                RedisKeySchema.USER_LASTNAME, user.getLastname(),
+                RedisKeySchema.USER_ROLES, authorities.roles(),
+                RedisKeySchema.USER_PERMISSION_BITS, authorities.permissionBits(),
+                RedisKeySchema.USER_AUTHORITY_EPOCH, epoch == null ? "0" : epoch);
+    }
+
+    private AuthorityStrings authorityStrings(UserDetails userDetails) {
+        StringJoiner roles = new StringJoiner(",");
+        List<String> permissions = new ArrayList<>();
+        for (GrantedAuthority grantedAuthority : userDetails.getAuthorities()) {
+            String authority = grantedAuthority.getAuthority();
+            if (authority.startsWith("ROLE_")) {
+                roles.add(authority);
+            } else {
+                permissions.add(authority);
+            }
+        }
+        return new AuthorityStrings(roles.toString(), permissionCatalog.encode(permissions));
+    }
+
+    private static byte[][] hashWriteArguments(String key, long expiration, String... fieldsAndValues) {
+        byte[][] keysAndArgs = new byte[fieldsAndValues.length + 2][];
+        keysAndArgs[0] = bytes(key);
+        keysAndArgs[1] = bytes(Long.toString(expiration));
+        for (int i = 0; i < fieldsAndValues.length; i++) {
+            keysAndArgs[i + 2] = bytes(fieldsAndValues[i] == null ? "" : fieldsAndValues[i]);
+        }
+        return keysAndArgs;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public record TokenPrincipal(
+            String username,
+            String roles,
+            String permissionBits,
+            String permissions,
+            String firstname,
+            String lastname
+    ) {
+    }
+
+    private record AuthorityStrings(String roles, String permissionBits) {
     }
-}
\ No newline at end of file
+}
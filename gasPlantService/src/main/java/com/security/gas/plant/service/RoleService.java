@@ -8,6 +8,7 @@ import com.security.gas.plant.entity.RoleEntity;
 import com.security.gas.plant.repository.PermissionRepository;
 import com.security.gas.plant.repository.RoleRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.HashSet;
@@ -20,6 +21,7 @@ public class RoleService {
 
     private final RoleRepository roleRepository;
     private final PermissionRepository permissionRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public RoleResponseDto createRoleWithPermissions(RoleRequestDto requestDto) {
         if (roleRepository.findByName(requestDto.getRoleName()).isPresent()) {
@@ -38,6 +40,7 @@ public class RoleService {
                 .collect(Collectors.toSet());
         RoleEntity role = new RoleEntity(null, requestDto.getRoleName(), permissions);
         RoleEntity savedRole = roleRepository.save(role);
+        eventPublisher.publishEvent(new PermissionCatalog.PermissionsChangedEvent());
         return RoleDtoMapper.toRoleResponseDto(savedRole);
     }
 }
\ No newline at end of file
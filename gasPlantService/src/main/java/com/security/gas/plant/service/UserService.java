@@ -11,19 +11,22 @@ import com.security.gas.plant.exception.ResourceNotFoundException;
 import com.security.gas.plant.repository.*;
 import com.security.gas.plant.requests.registrationrequest.UserRegisterRequest;
 import com.security.gas.plant.requests.updaterequest.UserUpdateRequest;
+import com.security.gas.plant.security.userauthentication.LoginThrottle;
 import com.security.gas.plant.security.userauthentication.UserAuthenticationRequest;
 import com.security.gas.plant.security.userauthentication.UserAuthenticationResponse;
 import com.security.gas.plant.security.userconfiguration.JwtService;
-import com.security.gas.plant.security.usertoken.Token;
-import com.security.gas.plant.security.usertoken.TokenRepository;
-import com.security.gas.plant.security.usertoken.TokenType;
+import com.security.gas.plant.security.usertoken.TokenAuditWriter;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -36,7 +39,10 @@ import java.util.stream.Collectors;
 @Slf4j
 public class UserService {
     private final UserRepository repository;
-    private final TokenRepository tokenRepository;
+    private final TokenAuditWriter tokenAuditWriter;
+    private final LoginThrottle loginThrottle;
+    private final RedisTokenService redisTokenService;
+    private final ObjectMapper objectMapper;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
@@ -85,7 +91,7 @@ public class UserService {
             var savedUser = repository.save(user);
             var jwtToken = jwtService.generateToken(user);
             var refreshToken = jwtService.generateRefreshToken(user);
-            saveUserToken(savedUser, jwtToken);
+            tokenAuditWriter.recordIssued(savedUser, jwtToken, false);
             return UserAuthenticationResponse.builder()
                     .accessToken(jwtToken)
                     .refreshToken(refreshToken)
@@ -96,20 +102,27 @@ public class UserService {
         }
     }
 
-    public UserAuthenticationResponse authenticate(UserAuthenticationRequest request) {
+    public UserAuthenticationResponse authenticate(UserAuthenticationRequest request, HttpServletRequest httpRequest) {
         try {
-            authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            request.getEmail(),
-                            request.getPassword()
-                    )
-            );
+            String clientIp = loginThrottle.clientIp(httpRequest);
+            loginThrottle.checkAllowed(request.getEmail(), clientIp);
+            try {
+                authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(
+                                request.getEmail(),
+                                request.getPassword()
+                        )
+                );
+            } catch (AuthenticationException ex) {
+                loginThrottle.recordFailure(request.getEmail(), clientIp);
+                throw ex;
+            }
+            loginThrottle.recordSuccess(request.getEmail());
             var user = repository.findUserByEmail(request.getEmail())
                     .orElseThrow();
             var jwtToken = jwtService.generateToken(user);
             var refreshToken = jwtService.generateRefreshToken(user);
-            revokeAllUserTokens(user);
-            saveUserToken(user, jwtToken);
+            tokenAuditWriter.recordIssued(user, jwtToken, true);
             return UserAuthenticationResponse.builder()
                     .accessToken(jwtToken)
                     .refreshToken(refreshToken)
@@ -198,9 +211,11 @@ public class UserService {
 
     public void deleteUserById(Integer id) {
         try {
-            if (!userDao.existsPersonWithId(id))
-                throw new ResourceNotFoundException("Organization user with id: [%s] already deleted".formatted(id));
+            User user = userDao.selectCompUserById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Organization user with id: [%s] already deleted".formatted(id)));
             userDao.deleteCompUserById(id);
+            redisTokenService.evictUser(user.getEmail());
+            redisTokenService.invalidateSession(user.getEmail());
         } catch (Exception ex) {
             log.error("Exception occurred while deleting user by ID: {}", ex.getMessage());
             throw ex;
@@ -212,6 +227,7 @@ public class UserService {
             User user = userDao.selectCompUserById(id)
                     .orElseThrow(() -> new ResourceNotFoundException("Organization user with id: [%s] not found".formatted(id)));
             boolean changes = false;
+            String previousEmail = user.getEmail();
             if (updateRequest.email() != null && !updateRequest.email().equals(user.getEmail())) {
                 if (userDao.existsPersonWithEmail((updateRequest.email()))) {
                     throw new DuplicateResourceException("email already taken");
@@ -223,44 +239,14 @@ public class UserService {
                 throw new RequestValidationException("no changes have been found");
             }
             userDao.updateCompUser(user);
+            redisTokenService.evictUser(previousEmail);
+            redisTokenService.invalidateSession(previousEmail);
         } catch (Exception ex) {
             log.error("Exception occurred while updating user by ID: {}", ex.getMessage());
             throw ex;
         }
     }
 
-    private void saveUserToken(User user, String jwtToken) {
-        try {
-            var token = Token.builder()
-                    .user(user)
-                    .token(jwtToken)
-                    .tokenType(TokenType.BEARER)
-                    .expired(false)
-                    .revoked(false)
-                    .build();
-            tokenRepository.save(token);
-        } catch (Exception ex) {
-            log.error("Exception occurred while saving user token: {}", ex.getMessage());
-            throw ex;
-        }
-    }
-
-    private void revokeAllUserTokens(User user) {
-        try {
-            var validUserTokens = tokenRepository.findAllValidTokenByUser(user.getId());
-            if (validUserTokens.isEmpty())
-                return;
-            validUserTokens.forEach(token -> {
-                token.setExpired(true);
-                token.setRevoked(true);
-            });
-            tokenRepository.saveAll(validUserTokens);
-        } catch (Exception ex) {
-            log.error("Exception occurred while revoking user tokens: {}", ex.getMessage());
-            throw ex;
-        }
-    }
-
     public void refreshToken(
             HttpServletRequest request,
             HttpServletResponse response
@@ -268,29 +254,70 @@ public class UserService {
         try {
             final String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
             final String refreshToken;
-            final String userEmail;
             if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                return;
+                throw new BadCredentialsException("Refresh token is missing");
             }
             refreshToken = authHeader.substring(7);
-            userEmail = jwtService.extractUsername(refreshToken);
-            if (userEmail != null) {
+            final Claims refreshClaims;
+            try {
+                refreshClaims = jwtService.extractRefreshClaims(refreshToken);
+            } catch (JwtException ex) {
+                throw new BadCredentialsException("Refresh token is invalid");
+            }
+            final String userEmail = refreshClaims.getSubject();
+            if (userEmail == null) {
+                throw new BadCredentialsException("Refresh token is invalid");
+            }
+            final UserAuthenticationResponse authResponse;
+            if (jwtService.isRotatingRefreshToken(refreshClaims)) {
+                jwtService.verifyRefreshGeneration(refreshClaims);
+                var cachedUser = redisTokenService.getCachedUser(userEmail);
+                var userId = jwtService.extractRefreshUserId(refreshClaims);
+                final String accessToken;
+                if (cachedUser != null && userId != null) {
+                    accessToken = jwtService.generateToken(cachedUser);
+                    tokenAuditWriter.recordIssued(User.builder().id(userId).email(userEmail).build(), accessToken, true);
+                } else {
+                    var user = this.repository.findUserByEmail(userEmail)
+                            .orElseThrow(() -> new BadCredentialsException("Refresh token is invalid"));
+                    accessToken = jwtService.generateToken(user);
+                    tokenAuditWriter.recordIssued(user, accessToken, true);
+                }
+                final String rotatedRefreshToken;
+                try {
+                    rotatedRefreshToken = jwtService.rotateRefreshToken(refreshClaims);
+                } catch (BadCredentialsException ex) {
+                    redisTokenService.invalidateToken(accessToken);
+                    tokenAuditWriter.revokeIssued(accessToken);
+                    throw ex;
+                }
+                authResponse = UserAuthenticationResponse.builder()
+                        .accessToken(accessToken)
+                        .refreshToken(rotatedRefreshToken)
+                        .build();
+            } else {
                 var user = this.repository.findUserByEmail(userEmail)
-                        .orElseThrow();
-                if (jwtService.isTokenValid(refreshToken, user)) {
-                    var accessToken = jwtService.generateToken(user);
-                    revokeAllUserTokens(user);
-                    saveUserToken(user, accessToken);
-                    var authResponse = UserAuthenticationResponse.builder()
-                            .accessToken(accessToken)
-                            .refreshToken(refreshToken)
-                            .build();
-                    new ObjectMapper().writeValue(response.getOutputStream(), authResponse);
+                        .orElseThrow(() -> new BadCredentialsException("Refresh token is invalid"));
+                if (!jwtService.isTokenValid(refreshToken, user)) {
+                    throw new BadCredentialsException("Refresh token is invalid");
+                }
+                long remainingMillis = refreshClaims.getExpiration().getTime() - System.currentTimeMillis();
+                if (!redisTokenService.markRefreshTokenUsed(refreshToken, remainingMillis)) {
+                    log.warn("Legacy refresh token reuse detected for user {}", userEmail);
+                    redisTokenService.invalidateSession(userEmail);
+                    throw new BadCredentialsException("Refresh token has already been used");
                 }
+                var accessToken = jwtService.generateToken(user);
+                tokenAuditWriter.recordIssued(user, accessToken, true);
+                authResponse = UserAuthenticationResponse.builder()
+                        .accessToken(accessToken)
+                        .refreshToken(jwtService.generateRefreshToken(user))
+                        .build();
             }
+            objectMapper.writeValue(response.getOutputStream(), authResponse);
         } catch (Exception ex) {
             log.error("Exception occurred during token refresh: {}", ex.getMessage());
             throw ex;
         }
     }
-}
\ No newline at end of file
+}
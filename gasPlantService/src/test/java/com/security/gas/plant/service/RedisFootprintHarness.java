@@ -0,0 +1,140 @@
+package com.security.gas.plant.service;
+
+import com.security.gas.plant.security.usertoken.TokenDigest;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Redis memory used per session by the legacy and compact key schemas.
+ * Run against a throwaway Redis only: {@code RedisFootprintHarness <host> <port> [sessions] [tokenLength]}.
+ */
+public class RedisFootprintHarness {
+
+    private static final String BENCHMARK_USER_DOMAIN = "@footprint.invalid";
+    private static final String BCRYPT_SAMPLE = "$2a$10$" + "x".repeat(53);
+    private static final long BENCHMARK_TTL_SECONDS = 60;
+    private static final int PERMISSIONS_PER_SESSION = 16;
+    private static final int MAX_SESSIONS = 10_000;
+    private static final int MAX_TOKEN_LENGTH = 8192;
+
+    private final StringRedisTemplate redisTemplate;
+
+    RedisFootprintHarness(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: RedisFootprintHarness <host> <port> [sessions] [tokenLength]");
+        }
+        int sessions = bounded(args, 2, 100, MAX_SESSIONS);
+        int tokenLength = bounded(args, 3, 700, MAX_TOKEN_LENGTH);
+        LettuceConnectionFactory connectionFactory =
+                new LettuceConnectionFactory(new RedisStandaloneConfiguration(args[0], Integer.parseInt(args[1])));
+        connectionFactory.afterPropertiesSet();
+        try {
+            StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+            Long keys = redisTemplate.execute((RedisCallback<Long>) connection -> connection.serverCommands().dbSize());
+            if (keys != null && keys > 0) {
+                throw new IllegalStateException("Refusing to run against a Redis database that already holds " + keys + " keys");
+            }
+            new RedisFootprintHarness(redisTemplate).measure(sessions, tokenLength)
+                    .forEach((name, value) -> System.out.println(name + ": " + value));
+        } finally {
+            connectionFactory.destroy();
+        }
+    }
+
+    Map<String, Object> measure(int sampleSize, int jwtLength) {
+        List<String> permissions = new ArrayList<>(PERMISSIONS_PER_SESSION);
+        BitSet bits = new BitSet();
+        for (int id = 0; id < PERMISSIONS_PER_SESSION; id++) {
+            permissions.add("PERMISSION_" + id);
+            bits.set(id);
+        }
+        String legacyPermissions = String.join(",", permissions);
+        String permissionBits = Base64.getUrlEncoder().withoutPadding().encodeToString(bits.toByteArray());
+        String roles = "ROLE_ADMIN";
+        SecureRandom random = new SecureRandom();
+        long legacyBytes = 0;
+        long compactBytes = 0;
+        for (int i = 0; i < sampleSize; i++) {
+            String username = "user" + i + "-" + UUID.randomUUID() + BENCHMARK_USER_DOMAIN;
+            String token = syntheticToken(random, jwtLength);
+            String digest = TokenDigest.of(token);
+
+            Map<String, String> legacyToken = Map.of("username", username, "roles", roles, "permissions", legacyPermissions);
+            Map<String, String> legacyUser = Map.of("email", username, "password", BCRYPT_SAMPLE,
+                    "firstname", "Firstname", "lastname", "Lastname", "roles", roles, "permissions", legacyPermissions);
+            legacyBytes += measureSession(
+                    RedisKeySchema.Legacy.tokenKey(token), legacyToken,
+                    RedisKeySchema.Legacy.userKey(username), legacyUser,
+                    RedisKeySchema.Legacy.sessionKey(username), token);
+
+            Map<String, String> compactToken = Map.of(RedisKeySchema.TOKEN_USERNAME, username,
+                    RedisKeySchema.TOKEN_ROLES, roles, RedisKeySchema.TOKEN_PERMISSION_BITS, permissionBits);
+            Map<String, String> compactUser = Map.of(RedisKeySchema.USER_FIRSTNAME, "Firstname",
+                    RedisKeySchema.USER_LASTNAME, "Lastname", RedisKeySchema.USER_ROLES, roles,
+                    RedisKeySchema.USER_PERMISSION_BITS, permissionBits);
+            compactBytes += measureSession(
+                    RedisKeySchema.tokenKeyForDigest(digest), compactToken,
+                    RedisKeySchema.userKey(username), compactUser,
+                    RedisKeySchema.sessionKey(username), digest);
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("sessions", sampleSize);
+        report.put("tokenLength", jwtLength);
+        report.put("permissionsPerSession", permissions.size());
+        report.put("legacyBytesPerSession", legacyBytes / sampleSize);
+        report.put("compactBytesPerSession", compactBytes / sampleSize);
+        report.put("schemaVersion", RedisKeySchema.VERSION);
+        return report;
+    }
+
+    private long measureSession(
+            String tokenKey, Map<String, String> tokenHash,
+            String userKey, Map<String, String> userHash,
+            String sessionKey, String sessionValue
+    ) {
+        redisTemplate.opsForHash().putAll(tokenKey, tokenHash);
+        redisTemplate.opsForHash().putAll(userKey, userHash);
+        redisTemplate.opsForValue().set(sessionKey, sessionValue, BENCHMARK_TTL_SECONDS, TimeUnit.SECONDS);
+        try {
+            return memoryUsage(tokenKey) + memoryUsage(userKey) + memoryUsage(sessionKey);
+        } finally {
+            redisTemplate.delete(List.of(tokenKey, userKey, sessionKey));
+        }
+    }
+
+    private long memoryUsage(String key) {
+        Object usage = redisTemplate.execute((RedisCallback<Object>) connection -> connection.execute(
+                "MEMORY",
+                "USAGE".getBytes(StandardCharsets.UTF_8),
+                key.getBytes(StandardCharsets.UTF_8)));
+        return usage instanceof Number number ? number.longValue() : 0;
+    }
+
+    private static int bounded(String[] args, int index, int defaultValue, int max) {
+        if (args.length <= index) {
+            return defaultValue;
+        }
+        int value = Integer.parseInt(args[index]);
+        if (value < 1 || value > max) {
+            throw new IllegalArgumentException("Argument " + (index + 1) + " must be between 1 and " + max);
+        }
+        return value;
+    }
+
+    private static String syntheticToken(Random random, int length) {
+        byte[] raw = new byte[length];
+        random.nextBytes(raw);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw).substring(0, length);
+    }
+}